@@ -0,0 +1,140 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.benchmarks;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reific.binarysearch.biased.BiasedBinarySearch;
+
+/**
+ * Searches of a sorted array of objects. Every probe dereferences an element, so each step may miss the cache twice:
+ * once for the reference and once for the object it refers to.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@State(Scope.Benchmark)
+public class ComparableSearchBenchmarks {
+
+	private static final int NUMBER_OF_NEEDLES = 4096;
+
+	// Keeps every value above the range Integer.valueOf caches (even with a raised -XX:AutoBoxCacheMax), so that
+	// boxing a value allocates a new object
+	private static final int BASE = 1 << 30;
+
+	@Param({ "1024", "1152", "65536", "73728", "1048576", "1179648" })
+	public int size;
+
+	// Fraction of needles that are present in the haystack
+	@Param({ "0", "0.5", "1" })
+	public double hitRatio;
+
+	private Integer[] haystack;
+	private Integer[] needles;
+	private final Comparator<Integer> comparator = new Comparator<Integer>() {
+		@Override
+		public int compare(Integer o1, Integer o2) {
+			return o1.compareTo(o2);
+		}
+	};
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(42);
+		haystack = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			haystack[i] = BASE + i * 2;
+		}
+		// Allocated in random order, so that neighbouring elements are not neighbours in memory
+		Integer[] shuffled = haystack.clone();
+		for (int i = size - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			Integer swap = shuffled[i];
+			shuffled[i] = shuffled[j];
+			shuffled[j] = swap;
+		}
+		for (int i = 0; i < size; i++) {
+			shuffled[i] = Integer.valueOf(shuffled[i].intValue());
+		}
+		Arrays.sort(shuffled);
+		haystack = shuffled;
+
+		needles = new Integer[NUMBER_OF_NEEDLES];
+		for (int i = 0; i < NUMBER_OF_NEEDLES; i++) {
+			needles[i] = BASE + random.nextInt(size) * 2 + (random.nextDouble() < hitRatio ? 0 : 1);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_NEEDLES)
+	public int arraysBinarySearch() {
+		int sum = 0;
+		for (Integer needle : needles) {
+			sum += Arrays.binarySearch(haystack, needle);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_NEEDLES)
+	public int biasedBinarySearch() {
+		int sum = 0;
+		for (Integer needle : needles) {
+			sum += BiasedBinarySearch.binarySearch(haystack, needle);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_NEEDLES)
+	public int arraysBinarySearchComparator() {
+		int sum = 0;
+		for (Integer needle : needles) {
+			sum += Arrays.binarySearch(haystack, needle, comparator);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_NEEDLES)
+	public int biasedBinarySearchComparator() {
+		int sum = 0;
+		for (Integer needle : needles) {
+			sum += BiasedBinarySearch.binarySearch(haystack, needle, comparator);
+		}
+		return sum;
+	}
+
+}
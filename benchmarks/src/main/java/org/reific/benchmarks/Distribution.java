@@ -0,0 +1,70 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * How benchmark needles are spread over the positions of a haystack.
+ */
+public enum Distribution {
+
+	/**
+	 * Every position equally likely
+	 */
+	UNIFORM {
+		@Override
+		int[] positions(int size, int count, Random random) {
+			int[] positions = new int[count];
+			for (int i = 0; i < count; i++) {
+				positions[i] = random.nextInt(size);
+			}
+			return positions;
+		}
+	},
+	/**
+	 * Zipf distributed (exponent 1) popularity, with the popular positions scattered over the haystack rather than
+	 * clustered at its start
+	 */
+	ZIPF {
+		@Override
+		int[] positions(int size, int count, Random random) {
+			int[] positions = new int[count];
+			double logSize = Math.log(size);
+			for (int i = 0; i < count; i++) {
+				// inverse of the (continuous) CDF of a Zipf distribution with exponent 1: P(rank <= r) = ln(r) / ln(n)
+				long rank = (long) Math.exp(random.nextDouble() * logSize) - 1;
+				positions[i] = (int) ((rank * 0x9E3779B1L) % size);
+			}
+			return positions;
+		}
+	},
+	/**
+	 * Uniform, but in ascending order (as probed by sorted-run joins)
+	 */
+	ASCENDING {
+		@Override
+		int[] positions(int size, int count, Random random) {
+			int[] positions = UNIFORM.positions(size, count, random);
+			Arrays.sort(positions);
+			return positions;
+		}
+	};
+
+	abstract int[] positions(int size, int count, Random random);
+}
@@ -0,0 +1,63 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.benchmarks;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A sorted haystack of even numbers (haystack[i] = 2i) and the needles to search for in it. A needle that hits is the
+ * value at a chosen position; one that misses is one more than that value.
+ */
+@State(Scope.Benchmark)
+public class Haystack {
+
+	public static final int NUMBER_OF_NEEDLES = 4096;
+
+	// Powers of two, and the same sizes plus an eighth
+	@Param({ "1024", "1152", "65536", "73728", "1048576", "1179648", "16777216", "18874368", "67108864", "75497472" })
+	public int size;
+
+	// Fraction of needles that are present in the haystack
+	@Param({ "0", "0.5", "1" })
+	public double hitRatio;
+
+	@Param({ "UNIFORM", "ZIPF", "ASCENDING" })
+	public Distribution distribution;
+
+	public int[] haystack;
+	public int[] needles;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		haystack = new int[size];
+		for (int i = 0; i < size; i++) {
+			haystack[i] = i * 2;
+		}
+		Random random = new Random(42);
+		int[] positions = distribution.positions(size, NUMBER_OF_NEEDLES, random);
+		needles = new int[NUMBER_OF_NEEDLES];
+		for (int i = 0; i < NUMBER_OF_NEEDLES; i++) {
+			needles[i] = positions[i] * 2 + (random.nextDouble() < hitRatio ? 0 : 1);
+		}
+	}
+}
@@ -0,0 +1,101 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reific.binarysearch.layout.HugePages;
+import org.reific.binarysearch.layout.MappedIntArray;
+
+/**
+ * Searches of the {@link Haystack} in a {@link MappedIntArray}, with the file backed by ordinary 4K pages or by 2MB
+ * huge pages, so the two can be compared on the same data and needles. The 4K files go on a tmpfs without huge pages
+ * (usually /dev/shm), so both are in memory and only the page size differs.
+ * <p>
+ * The 2M runs need a hugetlbfs mount (or a tmpfs mounted with huge=always) with enough huge pages for the largest size,
+ * for example:
+ * 
+ * <pre>
+ * echo 512 > /proc/sys/vm/nr_hugepages
+ * mount -t hugetlbfs -o pagesize=2M none /mnt/huge
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class MappedSearchBenchmarks {
+
+	@State(Scope.Benchmark)
+	public static class Mapped {
+
+		@Param({ "4K", "2M" })
+		public String pages;
+
+		@Param({ "SORTED", "EYTZINGER", "BTREE" })
+		public MappedIntArray.Layout layout;
+
+		File file;
+		MappedIntArray array;
+
+		@Setup(Level.Trial)
+		public void setUp(Haystack haystack) throws IOException {
+			File directory = pages.equals("2M") ? HugePages.hugePageDirectory() : HugePages.smallPageDirectory();
+			if (directory == null) {
+				throw new IllegalStateException("No huge page file system is mounted (see MappedSearchBenchmarks)");
+			}
+			file = new File(directory, "cache-friendly-" + layout + "-" + haystack.size + ".index");
+			MappedIntArray.write(file, haystack.haystack, layout);
+			array = MappedIntArray.open(file);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			// The pages are freed once the mapping goes too, at the end of the fork
+			file.delete();
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(Haystack.NUMBER_OF_NEEDLES)
+	public int search(Haystack h, Mapped mapped) {
+		MappedIntArray array = mapped.array;
+		int sum = 0;
+		for (int needle : h.needles) {
+			sum += array.search(needle);
+		}
+		return sum;
+	}
+
+}
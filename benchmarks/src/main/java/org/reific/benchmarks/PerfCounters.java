@@ -0,0 +1,54 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.benchmarks;
+
+import org.openjdk.jmh.profile.LinuxPerfNormProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with Linux perf_event counters attached, reporting cache, TLB and branch misses per search
+ * alongside the times. Takes the same arguments as the JMH command line (benchmark regular expression, -p, -rf, etc.).
+ * <p>
+ * The counters are normalized by the number of operations, and every benchmark counts one operation per needle, so
+ * they read as events per lookup. This needs the perf tool to be installed, and a kernel.perf_event_paranoid setting
+ * that lets the current user read the hardware counters. The benchmarks must run forked (the default).
+ */
+public final class PerfCounters {
+
+	// Generic perf event names, which perf maps to the matching counters of the CPU it runs on
+	static final String EVENTS = "L1-dcache-loads,L1-dcache-load-misses,LLC-loads,LLC-load-misses,"
+			+ "dTLB-loads,dTLB-load-misses,branches,branch-misses,instructions,cycles";
+
+	private PerfCounters() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		if (commandLine.shouldHelp()) {
+			commandLine.showHelp();
+			return;
+		}
+		Options options = new OptionsBuilder()
+				.parent(commandLine)
+				.addProfiler(LinuxPerfNormProfiler.class, "events=" + EVENTS)
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,352 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reific.BinarySearchExperiments;
+import org.reific.HybridBinarySearch;
+import org.reific.HybridIndex;
+import org.reific.binarysearch.biased.BiasedBinarySearch;
+import org.reific.binarysearch.biased.BiasedRangeSearch;
+import org.reific.binarysearch.biased.HotKeyCache;
+import org.reific.binarysearch.layout.EytzingerIntArray;
+import org.reific.binarysearch.layout.StaticBTreeIntArray;
+import org.reific.binarysearch.learned.InterpolationSearch;
+import org.reific.binarysearch.learned.LearnedIntIndex;
+import org.reific.collection.LongBPlusTree;
+
+/**
+ * Searches of a sorted int array (see {@link Haystack}), reported as the average time per search. Each invocation
+ * searches for every needle, so the loop overhead is amortized and the needles are independent of each other, as they
+ * would be in a real workload.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class SearchBenchmarks {
+
+	@State(Scope.Benchmark)
+	public static class Eytzinger {
+		EytzingerIntArray array;
+
+		@Setup(Level.Trial)
+		public void setUp(Haystack haystack) {
+			array = new EytzingerIntArray(haystack.haystack);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class StaticBTree {
+		StaticBTreeIntArray array;
+
+		@Setup(Level.Trial)
+		public void setUp(Haystack haystack) {
+			array = new StaticBTreeIntArray(haystack.haystack);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class BPlusTree {
+		LongBPlusTree tree;
+
+		@Setup(Level.Trial)
+		public void setUp(Haystack haystack) {
+			tree = new LongBPlusTree();
+			for (int key : haystack.haystack) {
+				tree.add(key);
+			}
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Hybrid {
+		HybridIndex index;
+
+		@Setup(Level.Trial)
+		public void setUp(Haystack haystack) {
+			index = new HybridIndex(haystack.haystack);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Learned {
+		LearnedIntIndex index;
+
+		@Setup(Level.Trial)
+		public void setUp(Haystack haystack) {
+			index = new LearnedIntIndex(haystack.haystack);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class HotKeys {
+		HotKeyCache cache;
+
+		@Setup(Level.Trial)
+		public void setUp(Haystack haystack) {
+			cache = new HotKeyCache(haystack.haystack);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Results {
+		int[] results = new int[Haystack.NUMBER_OF_NEEDLES];
+	}
+
+	@State(Scope.Benchmark)
+	public static class SortedNeedles {
+		int[] needles;
+
+		@Setup(Level.Trial)
+		public void setUp(Haystack haystack) {
+			needles = haystack.needles.clone();
+			Arrays.sort(needles);
+		}
+	}
+
+	/**
+	 * binarySearchBranchFreePrefetch only handles arrays of 2^n - 1 elements, starting at index 0, so it searches the
+	 * largest such prefix of the haystack. Its results are comparable with the others only for the power of two sizes.
+	 */
+	@State(Scope.Benchmark)
+	public static class PerfectPrefix {
+		int toIndex;
+
+		@Setup(Level.Trial)
+		public void setUp(Haystack haystack) {
+			toIndex = Integer.highestOneBit(haystack.size + 1) - 1;
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(Haystack.NUMBER_OF_NEEDLES)
+	public int arraysBinarySearch(Haystack h) {
+		int[] haystack = h.haystack;
+		int sum = 0;
+		for (int needle : h.needles) {
+			sum += Arrays.binarySearch(haystack, needle);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(Haystack.NUMBER_OF_NEEDLES)
+	public int biasedBinarySearch(Haystack h) {
+		int[] haystack = h.haystack;
+		int sum = 0;
+		for (int needle : h.needles) {
+			sum += BiasedBinarySearch.binarySearch(haystack, needle);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(Haystack.NUMBER_OF_NEEDLES)
+	public int biasedLowerBound(Haystack h) {
+		int[] haystack = h.haystack;
+		int sum = 0;
+		for (int needle : h.needles) {
+			sum += BiasedRangeSearch.lowerBound(haystack, needle);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(Haystack.NUMBER_OF_NEEDLES)
+	public long biasedEqualRange(Haystack h) {
+		int[] haystack = h.haystack;
+		long sum = 0;
+		for (int needle : h.needles) {
+			sum += BiasedRangeSearch.equalRange(haystack, needle);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(Haystack.NUMBER_OF_NEEDLES)
+	public int biasedBinarySearchHotKeyCache(Haystack h, HotKeys k) {
+		HotKeyCache cache = k.cache;
+		int sum = 0;
+		for (int needle : h.needles) {
+			sum += cache.search(needle);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(Haystack.NUMBER_OF_NEEDLES)
+	public int[] biasedBinarySearchBatched(Haystack h, Results r) {
+		BiasedBinarySearch.binarySearch(h.haystack, h.needles, r.results);
+		return r.results;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(Haystack.NUMBER_OF_NEEDLES)
+	public int[] biasedBinarySearchSortedKeys(Haystack h, SortedNeedles s, Results r) {
+		BiasedBinarySearch.binarySearchSortedKeys(h.haystack, s.needles, r.results);
+		return r.results;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(Haystack.NUMBER_OF_NEEDLES)
+	public int hybridBinarySearch(Haystack h) {
+		int[] haystack = h.haystack;
+		int sum = 0;
+		for (int needle : h.needles) {
+			sum += HybridBinarySearch.binarySearch(haystack, 0, haystack.length, needle);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(Haystack.NUMBER_OF_NEEDLES)
+	public int hybridIndex(Haystack h, Hybrid hybrid) {
+		HybridIndex index = hybrid.index;
+		int sum = 0;
+		for (int needle : h.needles) {
+			sum += index.search(needle);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(Haystack.NUMBER_OF_NEEDLES)
+	public int[] hybridIndexBatched(Haystack h, Hybrid hybrid, Results r) {
+		hybrid.index.search(h.needles, r.results);
+		return r.results;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(Haystack.NUMBER_OF_NEEDLES)
+	public int eytzinger(Haystack h, Eytzinger e) {
+		EytzingerIntArray array = e.array;
+		int sum = 0;
+		for (int needle : h.needles) {
+			sum += array.search(needle);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(Haystack.NUMBER_OF_NEEDLES)
+	public int[] eytzingerBatched(Haystack h, Eytzinger e, Results r) {
+		e.array.search(h.needles, r.results);
+		return r.results;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(Haystack.NUMBER_OF_NEEDLES)
+	public int staticBTree(Haystack h, StaticBTree b) {
+		StaticBTreeIntArray array = b.array;
+		int sum = 0;
+		for (int needle : h.needles) {
+			sum += array.search(needle);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(Haystack.NUMBER_OF_NEEDLES)
+	public int[] staticBTreeBatched(Haystack h, StaticBTree b, Results r) {
+		b.array.search(h.needles, r.results);
+		return r.results;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(Haystack.NUMBER_OF_NEEDLES)
+	public int bPlusTreeContains(Haystack h, BPlusTree b) {
+		LongBPlusTree tree = b.tree;
+		int sum = 0;
+		for (int needle : h.needles) {
+			sum += tree.contains(needle) ? 1 : 0;
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(Haystack.NUMBER_OF_NEEDLES)
+	public int interpolationSearch(Haystack h) {
+		int[] haystack = h.haystack;
+		int sum = 0;
+		for (int needle : h.needles) {
+			sum += InterpolationSearch.binarySearch(haystack, needle);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(Haystack.NUMBER_OF_NEEDLES)
+	public int learnedIndex(Haystack h, Learned l) {
+		LearnedIntIndex index = l.index;
+		int sum = 0;
+		for (int needle : h.needles) {
+			sum += index.search(needle);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(Haystack.NUMBER_OF_NEEDLES)
+	public int experimentX(Haystack h) {
+		int[] haystack = h.haystack;
+		int sum = 0;
+		for (int needle : h.needles) {
+			sum += BinarySearchExperiments.binarySearchX(haystack, 0, haystack.length, needle);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(Haystack.NUMBER_OF_NEEDLES)
+	public int experimentBranchFree(Haystack h) {
+		int[] haystack = h.haystack;
+		int sum = 0;
+		for (int needle : h.needles) {
+			sum += BinarySearchExperiments.binarySearchBranchFree(haystack, 0, haystack.length, needle);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(Haystack.NUMBER_OF_NEEDLES)
+	public int experimentBranchFreePrefetch(Haystack h, PerfectPrefix p) {
+		int[] haystack = h.haystack;
+		int toIndex = p.toIndex;
+		int sum = 0;
+		for (int needle : h.needles) {
+			sum += BinarySearchExperiments.binarySearchBranchFreePrefetch(haystack, 0, toIndex, needle);
+		}
+		return sum;
+	}
+
+}
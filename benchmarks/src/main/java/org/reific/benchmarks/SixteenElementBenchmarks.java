@@ -0,0 +1,103 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reific.BinarySearchExperiments;
+import org.reific.binarysearch.biased.BiasedBinarySearch;
+
+/**
+ * Searches of a single 16 element array, the only size binarySearchBranchFreeUnrolledStatic16 handles. The array fits
+ * in one or two cache lines, so this measures instruction costs (branches, mispredictions) rather than memory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SixteenElementBenchmarks {
+
+	private static final int NUMBER_OF_NEEDLES = 4096;
+
+	// Fraction of needles that are present in the haystack
+	@Param({ "0", "0.5", "1" })
+	public double hitRatio;
+
+	private int[] haystack;
+	private int[] needles;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		haystack = new int[16];
+		for (int i = 0; i < haystack.length; i++) {
+			haystack[i] = i * 2;
+		}
+		Random random = new Random(42);
+		needles = new int[NUMBER_OF_NEEDLES];
+		for (int i = 0; i < NUMBER_OF_NEEDLES; i++) {
+			needles[i] = random.nextInt(haystack.length) * 2 + (random.nextDouble() < hitRatio ? 0 : 1);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_NEEDLES)
+	public int arraysBinarySearch() {
+		int sum = 0;
+		for (int needle : needles) {
+			sum += Arrays.binarySearch(haystack, needle);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_NEEDLES)
+	public int biasedBinarySearch() {
+		int sum = 0;
+		for (int needle : needles) {
+			sum += BiasedBinarySearch.binarySearch(haystack, needle);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_NEEDLES)
+	public int experimentUnrolledStatic16() {
+		int sum = 0;
+		for (int needle : needles) {
+			sum += BinarySearchExperiments.binarySearchBranchFreeUnrolledStatic16(haystack, needle);
+		}
+		return sum;
+	}
+
+}
@@ -16,87 +16,49 @@
  */
 package org.reific;
 
-import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.reific.binarysearch.LastLevelSearch;
 
 /**
- * Work in Progress
+ * Static entry point to {@link HybridIndex}. Indexes are built on first use and kept in a small direct-mapped cache
+ * keyed by array identity and range, so callers alternating between a handful of arrays do not rebuild them. Callers
+ * that search the same array repeatedly should build and hold a HybridIndex themselves.
+ * <p>
+ * The cache keeps up to CACHE_SIZE arrays reachable. It is safe to call from multiple threads; a race between two
+ * callers can at worst build the same index twice.
  */
 public class HybridBinarySearch {
 
-	private static int[] currentHaystack = null;
-	private static int[] currentIndex = null;
-	private static int from;
-	private static int to;
-	private static int currentLength;
-
-	private static int FRACTION = 128;
-
-	private static int[] createIndex(int[] haystack, int from, int to) {
-		int length = to - from;
-		//System.out.println(haystack.length);
-		currentLength = length;
-		int next = 0;
-		int cacheSize = (flp2(length) / FRACTION) - 1;
-		int[] cache = new int[cacheSize];
-
-		for (int i = 2; i <= cacheSize + 1; i *= 2) {
-			for (int j = 1; j < i; j += 2) {
-				int index = length / i * j;
-				int k = haystack[from + index];
+	// Must be a power of two
+	private static final int CACHE_SIZE = 16;
 
-				cache[next++] = k;
-			}
-		}
-		return cache;
-	}
+	private static final AtomicReferenceArray<HybridIndex> cache = new AtomicReferenceArray<HybridIndex>(CACHE_SIZE);
 
 	public static int binarySearch(int[] a, int fromIndex, int toIndex, int key) {
-		if (a.length < FRACTION) {
-			return Arrays.binarySearch(a, fromIndex, toIndex, key);
-		}
-
-		if (a != currentHaystack || fromIndex != from || toIndex != to) {
-			currentHaystack = a;
-			from = fromIndex;
-			to = toIndex;
-			currentIndex = createIndex(a, fromIndex, toIndex);
+		if (toIndex - fromIndex < HybridIndex.FRACTION) {
+			HybridIndex.rangeCheck(a.length, fromIndex, toIndex);
+			return LastLevelSearch.binarySearch(a, fromIndex, toIndex, key);
 		}
-		int i = 0;
-		while (i < currentIndex.length) {
-			if (key <= currentIndex[i]) {
-				i = 2 * i + 1;
-			}
-			else {
-				i = 2 * i + 2;
-			}
-		}
-
-		int blah = currentIndex.length + 1;
-
-
-		int numerator = i - blah + 1;
-		int denominator = (currentIndex.length + 1);
-
-		int low = numerator == 0 ? 0 : fromIndex + currentLength / denominator * numerator;
-		int high = fromIndex + (currentLength + denominator - 1) / denominator * (numerator + 1) + 1;
+		return indexFor(a, fromIndex, toIndex).search(key);
+	}
 
-		if (high > currentLength) {
-			high = currentLength;
+	private static HybridIndex indexFor(int[] a, int fromIndex, int toIndex) {
+		int slot = slot(a, fromIndex, toIndex);
+		HybridIndex index = cache.get(slot);
+		if (index == null || !index.covers(a, fromIndex, toIndex)) {
+			index = new HybridIndex(a, fromIndex, toIndex);
+			cache.set(slot, index);
 		}
-
-		int binarySearch = Arrays.binarySearch(a, low, high, key);
-		return binarySearch;
-
+		return index;
 	}
 
-	private static int flp2(int x)
-	{
-		x = x | (x >>> 1);
-		x = x | (x >>> 2);
-		x = x | (x >>> 4);
-		x = x | (x >>> 8);
-		x = x | (x >>> 16);
-		return x - (x >>> 1);
+	private static int slot(int[] a, int fromIndex, int toIndex) {
+		int h = System.identityHashCode(a);
+		h = 31 * (31 * h + fromIndex) + toIndex;
+		// spread the high order bits downwards, as HashMap does
+		h ^= (h >>> 16);
+		return h & (CACHE_SIZE - 1);
 	}
 
 }
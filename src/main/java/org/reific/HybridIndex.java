@@ -0,0 +1,169 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific;
+
+import org.reific.binarysearch.LastLevelSearch;
+
+/**
+ * A small implicit search tree over evenly spaced samples of a sorted array. The samples are stored in breadth-first
+ * order, so the top levels of every search share the same few cache lines. Descending the tree narrows the search to a
+ * single bucket of the haystack, which is then binary searched.
+ * <p>
+ * An index is immutable once constructed and may be shared freely between threads. The haystack is not copied, and
+ * must not be modified while the index is in use.
+ */
+public final class HybridIndex {
+
+	// Each bucket of the haystack covers roughly FRACTION elements
+	static final int FRACTION = 128;
+
+	// Number of searches advanced in lock-step by the batched search
+	private static final int GROUP_SIZE = 8;
+
+	private final int[] haystack;
+	private final int fromIndex;
+	private final int toIndex;
+	private final int length;
+	// Number of buckets (a power of two). The index holds the numberOfBuckets - 1 bucket boundaries.
+	private final int numberOfBuckets;
+	private final int[] index;
+
+	public HybridIndex(int[] haystack) {
+		this(haystack, 0, haystack.length);
+	}
+
+	public HybridIndex(int[] haystack, int fromIndex, int toIndex) {
+		rangeCheck(haystack.length, fromIndex, toIndex);
+		this.haystack = haystack;
+		this.fromIndex = fromIndex;
+		this.toIndex = toIndex;
+		this.length = toIndex - fromIndex;
+		this.numberOfBuckets = Math.max(1, flp2(length) / FRACTION);
+		this.index = createIndex();
+	}
+
+	/**
+	 * Lay out the bucket boundaries in breadth-first order. Node t of level d holds the boundary of bucket
+	 * (2t + 1) * numberOfBuckets / 2^(d+1), so an in-order walk of the tree visits the boundaries in sorted order.
+	 */
+	private int[] createIndex() {
+		int[] cache = new int[numberOfBuckets - 1];
+		int next = 0;
+		for (int i = 2; i <= numberOfBuckets; i *= 2) {
+			for (int j = 1; j < i; j += 2) {
+				cache[next++] = haystack[boundary(numberOfBuckets / i * j)];
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * The position in the haystack of the sample separating the given bucket from the one before it
+	 */
+	private int boundary(int bucket) {
+		return fromIndex + (int) ((long) length * bucket / numberOfBuckets);
+	}
+
+	/**
+	 * Searches the indexed range for the specified value, with the same contract as Arrays.binarySearch
+	 */
+	public int search(int key) {
+		int[] index = this.index;
+		int i = 0;
+		while (i < index.length) {
+			if (key <= index[i]) {
+				i = 2 * i + 1;
+			}
+			else {
+				i = 2 * i + 2;
+			}
+		}
+		return searchBucket(i - index.length, key);
+	}
+
+	private int searchBucket(int bucket, int key) {
+		// haystack[boundary(bucket)] < key <= haystack[boundary(bucket + 1)], so the key (or its insertion point)
+		// is in the half open range (boundary(bucket), boundary(bucket + 1)]
+		int low = bucket == 0 ? fromIndex : boundary(bucket) + 1;
+		int high = bucket == numberOfBuckets - 1 ? toIndex : boundary(bucket + 1) + 1;
+
+		return LastLevelSearch.binarySearch(haystack, low, high, key);
+	}
+
+	/**
+	 * Searches for each of keys, storing the result for keys[i] (as defined by {@link #search(int)}) in results[i].
+	 * <p>
+	 * The keys are searched in groups, advancing every search of a group one level down the index before any of them
+	 * takes the next, so that the independent loads of a round can overlap.
+	 */
+	public void search(int[] keys, int[] results) {
+		if (results.length < keys.length) {
+			throw new IllegalArgumentException(
+					"results.length(" + results.length + ") < keys.length(" + keys.length + ")");
+		}
+		int[] index = this.index;
+		int[] nodes = new int[GROUP_SIZE];
+		for (int group = 0; group < keys.length; group += GROUP_SIZE) {
+			int lanes = Math.min(GROUP_SIZE, keys.length - group);
+			for (int lane = 0; lane < lanes; lane++) {
+				nodes[lane] = 0;
+			}
+			// The index is a perfect tree, so every search reaches a leaf at the same time
+			while (nodes[0] < index.length) {
+				for (int lane = 0; lane < lanes; lane++) {
+					int i = nodes[lane];
+					nodes[lane] = keys[group + lane] <= index[i] ? 2 * i + 1 : 2 * i + 2;
+				}
+			}
+			for (int lane = 0; lane < lanes; lane++) {
+				results[group + lane] = searchBucket(nodes[lane] - index.length, keys[group + lane]);
+			}
+		}
+	}
+
+	/**
+	 * @return true if this index was built for exactly the given range of the given array
+	 */
+	public boolean covers(int[] a, int fromIndex, int toIndex) {
+		return haystack == a && this.fromIndex == fromIndex && this.toIndex == toIndex;
+	}
+
+	// Copied from Arrays.binarySearch
+	static void rangeCheck(int arrayLength, int fromIndex, int toIndex) {
+		if (fromIndex > toIndex) {
+			throw new IllegalArgumentException(
+					"fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+		}
+		if (fromIndex < 0) {
+			throw new ArrayIndexOutOfBoundsException(fromIndex);
+		}
+		if (toIndex > arrayLength) {
+			throw new ArrayIndexOutOfBoundsException(toIndex);
+		}
+	}
+
+	private static int flp2(int x)
+	{
+		x = x | (x >>> 1);
+		x = x | (x >>> 2);
+		x = x | (x >>> 4);
+		x = x | (x >>> 8);
+		x = x | (x >>> 16);
+		return x - (x >>> 1);
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch;
+
+/**
+ * Binary search of a range of a sorted array, with the same contract as Arrays.binarySearch, used by the other
+ * searches in this library to finish once they have narrowed the range down.
+ * <p>
+ * This is the plain, scalar implementation. On Java 17 and later the library jar is multi-release, and its version of
+ * this class (under src/main/java17) finishes the last few levels, once the range is at most {@link #WINDOW} elements,
+ * by comparing the key against a whole vector of elements at a time with the incubating Vector API. That needs the
+ * JVM option --add-modules jdk.incubator.vector; without it, this implementation is used.
+ */
+public final class LastLevelSearch {
+
+	// The largest range searched by vector comparisons rather than halving: four 64 byte cache lines of ints
+	public static final int WINDOW = 64;
+
+	private LastLevelSearch() {
+	}
+
+	/**
+	 * @return true if the vector implementation is in use
+	 */
+	public static boolean vectorized() {
+		return false;
+	}
+
+	/**
+	 * Searches [fromIndex, toIndex) of a, which the caller has range checked, as Arrays.binarySearch does.
+	 */
+	public static int binarySearch(int[] a, int fromIndex, int toIndex, int key) {
+		int low = fromIndex;
+		int high = toIndex - 1;
+
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int midVal = a[mid];
+
+			if (midVal < key)
+				low = mid + 1;
+			else if (midVal > key)
+				high = mid - 1;
+			else
+				return mid; // key found
+		}
+		return -(low + 1); // key not found.
+	}
+
+	/**
+	 * Searches [fromIndex, toIndex) of a, which the caller has range checked, as Arrays.binarySearch does.
+	 */
+	public static int binarySearch(long[] a, int fromIndex, int toIndex, long key) {
+		int low = fromIndex;
+		int high = toIndex - 1;
+
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			long midVal = a[mid];
+
+			if (midVal < key)
+				low = mid + 1;
+			else if (midVal > key)
+				high = mid - 1;
+			else
+				return mid; // key found
+		}
+		return -(low + 1); // key not found.
+	}
+
+}
@@ -16,11 +16,18 @@
  */
 package org.reific.binarysearch.biased;
 
+import java.util.Comparator;
+
+import org.reific.binarysearch.LastLevelSearch;
+
 /**
  * Alternate implementations of Arrays.binarySearch that are more cache-friendly. The initial midpoint is
  * calculated by masking off the low order bits of the size of the array with an evolved constant. The constant was evolved
  * to have the property that conflict misses will be less likely for popular TLB and CPU Cache subsystems. This is particularly
  * important when binary searching large arrays that are powers of two in size or multiples of large powers of two.
+ * <p>
+ * There is one overload for every signature of Arrays.binarySearch. Cache sets and pages are selected by byte
+ * address, so each element width uses its own constant.
  */
 public class BiasedBinarySearch {
 
@@ -38,28 +45,225 @@ public class BiasedBinarySearch {
 		}
 	}
 
+	public static int binarySearch(int[] a, int key) {
+		return binarySearch0(a, 0, a.length, key);
+	}
+
 	public static int binarySearch(int[] a, int fromIndex, int toIndex,
 			int key) {
 		rangeCheck(a.length, fromIndex, toIndex);
 		return binarySearch0(a, fromIndex, toIndex, key);
 	}
 
+	public static int binarySearch(long[] a, long key) {
+		return binarySearch0(a, 0, a.length, key);
+	}
+
+	public static int binarySearch(long[] a, int fromIndex, int toIndex,
+			long key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return binarySearch0(a, fromIndex, toIndex, key);
+	}
+
+	public static int binarySearch(short[] a, short key) {
+		return binarySearch0(a, 0, a.length, key);
+	}
+
+	public static int binarySearch(short[] a, int fromIndex, int toIndex,
+			short key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return binarySearch0(a, fromIndex, toIndex, key);
+	}
+
+	public static int binarySearch(char[] a, char key) {
+		return binarySearch0(a, 0, a.length, key);
+	}
+
+	public static int binarySearch(char[] a, int fromIndex, int toIndex,
+			char key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return binarySearch0(a, fromIndex, toIndex, key);
+	}
+
+	public static int binarySearch(byte[] a, byte key) {
+		return binarySearch0(a, 0, a.length, key);
+	}
+
+	public static int binarySearch(byte[] a, int fromIndex, int toIndex,
+			byte key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return binarySearch0(a, fromIndex, toIndex, key);
+	}
+
+	public static int binarySearch(double[] a, double key) {
+		return binarySearch0(a, 0, a.length, key);
+	}
+
+	public static int binarySearch(double[] a, int fromIndex, int toIndex,
+			double key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return binarySearch0(a, fromIndex, toIndex, key);
+	}
+
+	public static int binarySearch(float[] a, float key) {
+		return binarySearch0(a, 0, a.length, key);
+	}
+
+	public static int binarySearch(float[] a, int fromIndex, int toIndex,
+			float key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return binarySearch0(a, fromIndex, toIndex, key);
+	}
+
+	public static int binarySearch(Object[] a, Object key) {
+		return binarySearch0(a, 0, a.length, key);
+	}
+
+	public static int binarySearch(Object[] a, int fromIndex, int toIndex,
+			Object key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return binarySearch0(a, fromIndex, toIndex, key);
+	}
+
+	public static <T> int binarySearch(T[] a, T key, Comparator<? super T> c) {
+		return binarySearch0(a, 0, a.length, key, c);
+	}
+
+	public static <T> int binarySearch(T[] a, int fromIndex, int toIndex,
+			T key, Comparator<? super T> c) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return binarySearch0(a, fromIndex, toIndex, key, c);
+	}
+
+	/**
+	 * Searches for each of keys, storing the result for keys[i] (as defined by Arrays.binarySearch) in results[i].
+	 * <p>
+	 * The keys are searched in groups, advancing every search of a group by one probe before any of them takes the
+	 * next. The probes within a round are independent of each other, so their cache misses overlap instead of forming
+	 * one long chain of dependent misses per key. Where the array contains duplicates of a key, the position of the
+	 * first of them is returned.
+	 */
+	public static void binarySearch(int[] a, int[] keys, int[] results) {
+		batchCheck(keys.length, results);
+		binarySearch0(a, 0, a.length, keys, results);
+	}
+
+	public static void binarySearch(int[] a, int fromIndex, int toIndex, int[] keys, int[] results) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		batchCheck(keys.length, results);
+		binarySearch0(a, fromIndex, toIndex, keys, results);
+	}
+
+	/**
+	 * Searches for each of keys, storing the result for keys[i] (as defined by Arrays.binarySearch) in results[i].
+	 * <p>
+	 * Intended for keys in ascending order. Each search starts where the previous one finished and gallops forward,
+	 * probing at geometrically increasing distances until it passes the key, then binary searches the last gap. The cost
+	 * of a key is logarithmic in its distance from the previous one, so m keys spread over n elements cost about
+	 * m log(n/m) probes rather than m log(n). The galloping probes are biased in the same way as the first probe of
+	 * binarySearch, so the probes of a long gallop do not all fall into the same cache set.
+	 * <p>
+	 * Keys that are not in ascending order are still found correctly; a key smaller than its predecessor simply restarts
+	 * from fromIndex.
+	 */
+	public static void binarySearchSortedKeys(int[] a, int[] keys, int[] results) {
+		batchCheck(keys.length, results);
+		binarySearchSortedKeys0(a, 0, a.length, keys, results);
+	}
+
+	public static void binarySearchSortedKeys(int[] a, int fromIndex, int toIndex, int[] keys, int[] results) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		batchCheck(keys.length, results);
+		binarySearchSortedKeys0(a, fromIndex, toIndex, keys, results);
+	}
+
+	public static void binarySearchSortedKeys(long[] a, long[] keys, int[] results) {
+		batchCheck(keys.length, results);
+		binarySearchSortedKeys0(a, 0, a.length, keys, results);
+	}
+
+	public static void binarySearchSortedKeys(long[] a, int fromIndex, int toIndex, long[] keys, int[] results) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		batchCheck(keys.length, results);
+		binarySearchSortedKeys0(a, fromIndex, toIndex, keys, results);
+	}
+
+	/**
+	 * @return the position of the first probe of a search of [fromIndex, toIndex) of a 32 bit array (int or float), for
+	 *         searches of sorted data held other than in a Java array, such as a mapped file. The range must not be
+	 *         empty.
+	 */
+	public static int firstProbe32(int fromIndex, int toIndex) {
+		return biasedMidpoint32(fromIndex, toIndex);
+	}
+
+	private static void batchCheck(int numberOfKeys, int[] results) {
+		if (results.length < numberOfKeys) {
+			throw new IllegalArgumentException(
+					"results.length(" + results.length + ") < keys.length(" + numberOfKeys + ")");
+		}
+	}
+
 	// A constant suitable for use on primitive 32 bit arrays (int, float)
 	// Evolved using org.reific.binarysearch.biased.evolve.EvolveBinarySearchConstant
-	private static final int EVOLVED_32_BIT_CONSTANT = 79643643;
+	static final int COMPILED_32_BIT_CONSTANT = 79643643;
+
+	// The constant for the cache geometry of this machine, if one is known (see BiasingConstant)
+	private static final int EVOLVED_32_BIT_CONSTANT = BiasingConstant.select(COMPILED_32_BIT_CONSTANT);
+
+	// Constants for the other element widths. An index bit of a 64 bit array selects the same address bit
+	// as the next higher index bit of a 32 bit array, so these place the first probe at the same byte offsets
+	// (and hence the same cache sets and pages) that the 32 bit constant was evolved for. The low order bits
+	// below the 32 bit granularity never select a different cache line, and are set.
+	private static final int EVOLVED_64_BIT_CONSTANT = EVOLVED_32_BIT_CONSTANT >>> 1;
+	private static final int EVOLVED_16_BIT_CONSTANT = (EVOLVED_32_BIT_CONSTANT << 1) | 0x1;
+	private static final int EVOLVED_8_BIT_CONSTANT = (EVOLVED_32_BIT_CONSTANT << 2) | 0x3;
 
 	/**
-	 * Our implementation, based on Arrays.binarySearch
+	 * Our implementation, based on Arrays.binarySearch. Only the first probe is biased, so the rest of the search is
+	 * left to LastLevelSearch, which on Java 17 can finish it with vector comparisons.
 	 */
 	private static int binarySearch0(int[] a, int fromIndex, int toIndex,
 			int key) {
+		if (fromIndex >= toIndex) {
+			return -(fromIndex + 1); // key not found.
+		}
+		int mid = biasedMidpoint32(fromIndex, toIndex);
+		int midVal = a[mid];
+
+		if (midVal < key)
+			return LastLevelSearch.binarySearch(a, mid + 1, toIndex, key);
+		else if (midVal > key)
+			return LastLevelSearch.binarySearch(a, fromIndex, mid, key);
+		else
+			return mid; // key found
+	}
+
+	private static int binarySearch0(long[] a, int fromIndex, int toIndex,
+			long key) {
+		if (fromIndex >= toIndex) {
+			return -(fromIndex + 1); // key not found.
+		}
+		int mid = biasedMidpoint64(fromIndex, toIndex);
+		long midVal = a[mid];
+
+		if (midVal < key)
+			return LastLevelSearch.binarySearch(a, mid + 1, toIndex, key);
+		else if (midVal > key)
+			return LastLevelSearch.binarySearch(a, fromIndex, mid, key);
+		else
+			return mid; // key found
+	}
+
+	private static int binarySearch0(short[] a, int fromIndex, int toIndex,
+			short key) {
 		int low = fromIndex;
 		int high = toIndex - 1;
 
-		int mid = biasedMidpoint32(fromIndex, toIndex);
+		int mid = biasedMidpoint16(fromIndex, toIndex);
 
 		while (low <= high) {
-			int midVal = a[mid];
+			short midVal = a[mid];
 
 			if (midVal < key)
 				low = mid + 1;
@@ -72,7 +276,308 @@ public class BiasedBinarySearch {
 		return -(low + 1); // key not found.
 	}
 
-	private static int biasedMidpoint32(int fromIndex, int toIndex) {
+	private static int binarySearch0(char[] a, int fromIndex, int toIndex,
+			char key) {
+		int low = fromIndex;
+		int high = toIndex - 1;
+
+		int mid = biasedMidpoint16(fromIndex, toIndex);
+
+		while (low <= high) {
+			char midVal = a[mid];
+
+			if (midVal < key)
+				low = mid + 1;
+			else if (midVal > key)
+				high = mid - 1;
+			else
+				return mid; // key found
+			mid = (low + high) >>> 1;
+		}
+		return -(low + 1); // key not found.
+	}
+
+	private static int binarySearch0(byte[] a, int fromIndex, int toIndex,
+			byte key) {
+		int low = fromIndex;
+		int high = toIndex - 1;
+
+		int mid = biasedMidpoint8(fromIndex, toIndex);
+
+		while (low <= high) {
+			byte midVal = a[mid];
+
+			if (midVal < key)
+				low = mid + 1;
+			else if (midVal > key)
+				high = mid - 1;
+			else
+				return mid; // key found
+			mid = (low + high) >>> 1;
+		}
+		return -(low + 1); // key not found.
+	}
+
+	private static int binarySearch0(double[] a, int fromIndex, int toIndex,
+			double key) {
+		int low = fromIndex;
+		int high = toIndex - 1;
+
+		int mid = biasedMidpoint64(fromIndex, toIndex);
+
+		while (low <= high) {
+			double midVal = a[mid];
+
+			if (midVal < key)
+				low = mid + 1; // Neither val is NaN, thisVal is smaller
+			else if (midVal > key)
+				high = mid - 1; // Neither val is NaN, thisVal is larger
+			else {
+				long midBits = Double.doubleToLongBits(midVal);
+				long keyBits = Double.doubleToLongBits(key);
+				if (midBits == keyBits) // Values are equal
+					return mid; // Key found
+				else if (midBits < keyBits) // (-0.0, 0.0) or (!NaN, NaN)
+					low = mid + 1;
+				else
+					// (0.0, -0.0) or (NaN, !NaN)
+					high = mid - 1;
+			}
+			mid = (low + high) >>> 1;
+		}
+		return -(low + 1); // key not found.
+	}
+
+	private static int binarySearch0(float[] a, int fromIndex, int toIndex,
+			float key) {
+		int low = fromIndex;
+		int high = toIndex - 1;
+
+		int mid = biasedMidpoint32(fromIndex, toIndex);
+
+		while (low <= high) {
+			float midVal = a[mid];
+
+			if (midVal < key)
+				low = mid + 1; // Neither val is NaN, thisVal is smaller
+			else if (midVal > key)
+				high = mid - 1; // Neither val is NaN, thisVal is larger
+			else {
+				int midBits = Float.floatToIntBits(midVal);
+				int keyBits = Float.floatToIntBits(key);
+				if (midBits == keyBits) // Values are equal
+					return mid; // Key found
+				else if (midBits < keyBits) // (-0.0, 0.0) or (!NaN, NaN)
+					low = mid + 1;
+				else
+					// (0.0, -0.0) or (NaN, !NaN)
+					high = mid - 1;
+			}
+			mid = (low + high) >>> 1;
+		}
+		return -(low + 1); // key not found.
+	}
+
+	// References are 32 bits wide with compressed oops (the default for heaps under 32GB), so the
+	// reference array itself is probed using the 32 bit constant.
+	private static int binarySearch0(Object[] a, int fromIndex, int toIndex,
+			Object key) {
+		int low = fromIndex;
+		int high = toIndex - 1;
+
+		int mid = biasedMidpoint32(fromIndex, toIndex);
+
+		while (low <= high) {
+			@SuppressWarnings("rawtypes")
+			Comparable midVal = (Comparable) a[mid];
+			@SuppressWarnings("unchecked")
+			int cmp = midVal.compareTo(key);
+
+			if (cmp < 0)
+				low = mid + 1;
+			else if (cmp > 0)
+				high = mid - 1;
+			else
+				return mid; // key found
+			mid = (low + high) >>> 1;
+		}
+		return -(low + 1); // key not found.
+	}
+
+	private static <T> int binarySearch0(T[] a, int fromIndex, int toIndex,
+			T key, Comparator<? super T> c) {
+		if (c == null) {
+			return binarySearch0(a, fromIndex, toIndex, key);
+		}
+		int low = fromIndex;
+		int high = toIndex - 1;
+
+		int mid = biasedMidpoint32(fromIndex, toIndex);
+
+		while (low <= high) {
+			T midVal = a[mid];
+			int cmp = c.compare(midVal, key);
+
+			if (cmp < 0)
+				low = mid + 1;
+			else if (cmp > 0)
+				high = mid - 1;
+			else
+				return mid; // key found
+			mid = (low + high) >>> 1;
+		}
+		return -(low + 1); // key not found.
+	}
+
+	// Number of searches advanced in lock-step by the batched binarySearch. Enough to keep the memory system busy
+	// (most cores track 10 or more outstanding L1 misses), small enough for the group state to stay in registers/L1.
+	private static final int GROUP_SIZE = 8;
+
+	/**
+	 * Batched lower bound search. Every search shares the biased first probe, then halves its own window once per round.
+	 */
+	private static void binarySearch0(int[] a, int fromIndex, int toIndex, int[] keys, int[] results) {
+		if (fromIndex == toIndex) {
+			for (int i = 0; i < keys.length; i++) {
+				results[i] = -(fromIndex + 1);
+			}
+			return;
+		}
+		int mid = biasedMidpoint32(fromIndex, toIndex);
+		int midVal = a[mid];
+
+		// Each search looks for the first element >= its key within [base, base + length)
+		int[] base = new int[GROUP_SIZE];
+		int[] length = new int[GROUP_SIZE];
+
+		for (int group = 0; group < keys.length; group += GROUP_SIZE) {
+			int lanes = Math.min(GROUP_SIZE, keys.length - group);
+
+			for (int lane = 0; lane < lanes; lane++) {
+				boolean right = midVal < keys[group + lane];
+				base[lane] = right ? mid + 1 : fromIndex;
+				length[lane] = right ? toIndex - mid - 1 : mid - fromIndex;
+			}
+
+			boolean active = true;
+			while (active) {
+				active = false;
+				for (int lane = 0; lane < lanes; lane++) {
+					int len = length[lane];
+					if (len > 0) {
+						int half = len >>> 1;
+						int probe = base[lane] + half;
+						boolean right = a[probe] < keys[group + lane];
+						base[lane] = right ? probe + 1 : base[lane];
+						len = right ? len - half - 1 : half;
+						length[lane] = len;
+						active |= len > 0;
+					}
+				}
+			}
+
+			for (int lane = 0; lane < lanes; lane++) {
+				int low = base[lane];
+				results[group + lane] = low < toIndex && a[low] == keys[group + lane] ? low : -(low + 1);
+			}
+		}
+	}
+
+	private static void binarySearchSortedKeys0(int[] a, int fromIndex, int toIndex, int[] keys, int[] results) {
+		int low = fromIndex;
+		for (int i = 0; i < keys.length; i++) {
+			int key = keys[i];
+			if (i > 0 && key < keys[i - 1]) {
+				low = fromIndex;
+			}
+			int result = gallop0(a, low, toIndex, key);
+			results[i] = result;
+			low = result >= 0 ? result : -(result + 1);
+		}
+	}
+
+	/**
+	 * Search [low, toIndex) for key, probing at low + gallopProbe32(bound) for bound = 1, 2, 4, ...
+	 */
+	private static int gallop0(int[] a, int low, int toIndex, int key) {
+		int windowStart = low;
+		int remaining = toIndex - low;
+		for (int bound = 1; bound <= remaining && bound > 0; bound <<= 1) {
+			int probe = low + gallopProbe32(bound);
+			int probeVal = a[probe];
+
+			if (probeVal < key)
+				windowStart = probe + 1;
+			else if (probeVal > key)
+				return binarySearch0(a, windowStart, probe, key);
+			else
+				return probe; // key found
+		}
+		return binarySearch0(a, windowStart, toIndex, key);
+	}
+
+	private static void binarySearchSortedKeys0(long[] a, int fromIndex, int toIndex, long[] keys, int[] results) {
+		int low = fromIndex;
+		for (int i = 0; i < keys.length; i++) {
+			long key = keys[i];
+			if (i > 0 && key < keys[i - 1]) {
+				low = fromIndex;
+			}
+			int result = gallop0(a, low, toIndex, key);
+			results[i] = result;
+			low = result >= 0 ? result : -(result + 1);
+		}
+	}
+
+	private static int gallop0(long[] a, int low, int toIndex, long key) {
+		int windowStart = low;
+		int remaining = toIndex - low;
+		for (int bound = 1; bound <= remaining && bound > 0; bound <<= 1) {
+			int probe = low + gallopProbe64(bound);
+			long probeVal = a[probe];
+
+			if (probeVal < key)
+				windowStart = probe + 1;
+			else if (probeVal > key)
+				return binarySearch0(a, windowStart, probe, key);
+			else
+				return probe; // key found
+		}
+		return binarySearch0(a, windowStart, toIndex, key);
+	}
+
+	/**
+	 * The offset of a galloping probe within a window of the given (power of two) size. It lies in
+	 * [bound / 2, bound), so each probe passes the previous window, but its low order bits are those of the biased
+	 * midpoint rather than all ones.
+	 */
+	static int gallopProbe32(int bound) {
+		int half = bound >>> 1;
+		return half + (biasedMidpoint32(0, bound) & (half - 1));
+	}
+
+	static int gallopProbe64(int bound) {
+		int half = bound >>> 1;
+		return half + (biasedMidpoint64(0, bound) & (half - 1));
+	}
+
+	static int biasedMidpoint8(int fromIndex, int toIndex) {
+		return biasedMidpoint(fromIndex, toIndex, EVOLVED_8_BIT_CONSTANT);
+	}
+
+	static int biasedMidpoint16(int fromIndex, int toIndex) {
+		return biasedMidpoint(fromIndex, toIndex, EVOLVED_16_BIT_CONSTANT);
+	}
+
+	static int biasedMidpoint32(int fromIndex, int toIndex) {
+		return biasedMidpoint(fromIndex, toIndex, EVOLVED_32_BIT_CONSTANT);
+	}
+
+	static int biasedMidpoint64(int fromIndex, int toIndex) {
+		return biasedMidpoint(fromIndex, toIndex, EVOLVED_64_BIT_CONSTANT);
+	}
+
+	private static int biasedMidpoint(int fromIndex, int toIndex, int evolvedConstant) {
 		int size = toIndex - fromIndex;
 
 		// this call will be replaced by single assembly op with a 
@@ -92,7 +597,7 @@ public class BiasedBinarySearch {
 
 		//mask these one bits with our magic constant,
 		// which guarantees a mid smaller than  (but close to) size
-		int mask = EVOLVED_32_BIT_CONSTANT | (0x80000000 >> keepBits);
+		int mask = evolvedConstant | (0x80000000 >> keepBits);
 		mid = (mid & mask) + fromIndex;
 		return mid;
 	}
@@ -0,0 +1,889 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased;
+
+/**
+ * Range queries over sorted primitive arrays that may contain duplicates, with the same biased first probe as
+ * BiasedBinarySearch. Unlike binarySearch, which returns any one of several equal elements, these find the edges of
+ * a run of equal elements directly, in a single descent with no scan over the run.
+ * <ul>
+ * <li>lowerBound: the index of the first element &gt;= key (toIndex if there is none)</li>
+ * <li>upperBound: the index of the first element &gt; key (toIndex if there is none)</li>
+ * <li>equalRange: both, packed into a long (see {@link #start(long)} and {@link #end(long)})</li>
+ * <li>countInRange: the number of elements in [low, high]</li>
+ * </ul>
+ * Each step of the descent picks its half with a conditional move rather than a branch. Floats and doubles are
+ * ordered as Arrays.sort orders them (-0.0 before 0.0, NaN last), by comparing their bits mapped to sortable
+ * integers.
+ */
+public class BiasedRangeSearch {
+
+	// Copied from Arrays.binarySearch
+	private static void rangeCheck(int arrayLength, int fromIndex, int toIndex) {
+		if (fromIndex > toIndex) {
+			throw new IllegalArgumentException(
+					"fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+		}
+		if (fromIndex < 0) {
+			throw new ArrayIndexOutOfBoundsException(fromIndex);
+		}
+		if (toIndex > arrayLength) {
+			throw new ArrayIndexOutOfBoundsException(toIndex);
+		}
+	}
+
+	/**
+	 * @return the start (inclusive) of a range returned by equalRange
+	 */
+	public static int start(long range) {
+		return (int) (range >>> 32);
+	}
+
+	/**
+	 * @return the end (exclusive) of a range returned by equalRange
+	 */
+	public static int end(long range) {
+		return (int) range;
+	}
+
+	private static long range(int start, int end) {
+		return ((long) start << 32) | (end & 0xFFFFFFFFL);
+	}
+
+	public static int lowerBound(int[] a, int key) {
+		return lowerBound0(a, 0, a.length, key);
+	}
+
+	public static int lowerBound(int[] a, int fromIndex, int toIndex, int key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return lowerBound0(a, fromIndex, toIndex, key);
+	}
+
+	public static int upperBound(int[] a, int key) {
+		return upperBound0(a, 0, a.length, key);
+	}
+
+	public static int upperBound(int[] a, int fromIndex, int toIndex, int key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return upperBound0(a, fromIndex, toIndex, key);
+	}
+
+	public static long equalRange(int[] a, int key) {
+		return range0(a, 0, a.length, key, key);
+	}
+
+	public static long equalRange(int[] a, int fromIndex, int toIndex, int key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return range0(a, fromIndex, toIndex, key, key);
+	}
+
+	public static int countInRange(int[] a, int low, int high) {
+		return countInRange(a, 0, a.length, low, high);
+	}
+
+	public static int countInRange(int[] a, int fromIndex, int toIndex, int low, int high) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		int lowKey = low;
+		int highKey = high;
+		if (highKey < lowKey) {
+			return 0;
+		}
+		long range = range0(a, fromIndex, toIndex, lowKey, highKey);
+		return end(range) - start(range);
+	}
+
+	public static int lowerBound(long[] a, long key) {
+		return lowerBound0(a, 0, a.length, key);
+	}
+
+	public static int lowerBound(long[] a, int fromIndex, int toIndex, long key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return lowerBound0(a, fromIndex, toIndex, key);
+	}
+
+	public static int upperBound(long[] a, long key) {
+		return upperBound0(a, 0, a.length, key);
+	}
+
+	public static int upperBound(long[] a, int fromIndex, int toIndex, long key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return upperBound0(a, fromIndex, toIndex, key);
+	}
+
+	public static long equalRange(long[] a, long key) {
+		return range0(a, 0, a.length, key, key);
+	}
+
+	public static long equalRange(long[] a, int fromIndex, int toIndex, long key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return range0(a, fromIndex, toIndex, key, key);
+	}
+
+	public static int countInRange(long[] a, long low, long high) {
+		return countInRange(a, 0, a.length, low, high);
+	}
+
+	public static int countInRange(long[] a, int fromIndex, int toIndex, long low, long high) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		long lowKey = low;
+		long highKey = high;
+		if (highKey < lowKey) {
+			return 0;
+		}
+		long range = range0(a, fromIndex, toIndex, lowKey, highKey);
+		return end(range) - start(range);
+	}
+
+	public static int lowerBound(short[] a, short key) {
+		return lowerBound0(a, 0, a.length, key);
+	}
+
+	public static int lowerBound(short[] a, int fromIndex, int toIndex, short key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return lowerBound0(a, fromIndex, toIndex, key);
+	}
+
+	public static int upperBound(short[] a, short key) {
+		return upperBound0(a, 0, a.length, key);
+	}
+
+	public static int upperBound(short[] a, int fromIndex, int toIndex, short key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return upperBound0(a, fromIndex, toIndex, key);
+	}
+
+	public static long equalRange(short[] a, short key) {
+		return range0(a, 0, a.length, key, key);
+	}
+
+	public static long equalRange(short[] a, int fromIndex, int toIndex, short key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return range0(a, fromIndex, toIndex, key, key);
+	}
+
+	public static int countInRange(short[] a, short low, short high) {
+		return countInRange(a, 0, a.length, low, high);
+	}
+
+	public static int countInRange(short[] a, int fromIndex, int toIndex, short low, short high) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		int lowKey = low;
+		int highKey = high;
+		if (highKey < lowKey) {
+			return 0;
+		}
+		long range = range0(a, fromIndex, toIndex, lowKey, highKey);
+		return end(range) - start(range);
+	}
+
+	public static int lowerBound(char[] a, char key) {
+		return lowerBound0(a, 0, a.length, key);
+	}
+
+	public static int lowerBound(char[] a, int fromIndex, int toIndex, char key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return lowerBound0(a, fromIndex, toIndex, key);
+	}
+
+	public static int upperBound(char[] a, char key) {
+		return upperBound0(a, 0, a.length, key);
+	}
+
+	public static int upperBound(char[] a, int fromIndex, int toIndex, char key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return upperBound0(a, fromIndex, toIndex, key);
+	}
+
+	public static long equalRange(char[] a, char key) {
+		return range0(a, 0, a.length, key, key);
+	}
+
+	public static long equalRange(char[] a, int fromIndex, int toIndex, char key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return range0(a, fromIndex, toIndex, key, key);
+	}
+
+	public static int countInRange(char[] a, char low, char high) {
+		return countInRange(a, 0, a.length, low, high);
+	}
+
+	public static int countInRange(char[] a, int fromIndex, int toIndex, char low, char high) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		int lowKey = low;
+		int highKey = high;
+		if (highKey < lowKey) {
+			return 0;
+		}
+		long range = range0(a, fromIndex, toIndex, lowKey, highKey);
+		return end(range) - start(range);
+	}
+
+	public static int lowerBound(byte[] a, byte key) {
+		return lowerBound0(a, 0, a.length, key);
+	}
+
+	public static int lowerBound(byte[] a, int fromIndex, int toIndex, byte key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return lowerBound0(a, fromIndex, toIndex, key);
+	}
+
+	public static int upperBound(byte[] a, byte key) {
+		return upperBound0(a, 0, a.length, key);
+	}
+
+	public static int upperBound(byte[] a, int fromIndex, int toIndex, byte key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return upperBound0(a, fromIndex, toIndex, key);
+	}
+
+	public static long equalRange(byte[] a, byte key) {
+		return range0(a, 0, a.length, key, key);
+	}
+
+	public static long equalRange(byte[] a, int fromIndex, int toIndex, byte key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return range0(a, fromIndex, toIndex, key, key);
+	}
+
+	public static int countInRange(byte[] a, byte low, byte high) {
+		return countInRange(a, 0, a.length, low, high);
+	}
+
+	public static int countInRange(byte[] a, int fromIndex, int toIndex, byte low, byte high) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		int lowKey = low;
+		int highKey = high;
+		if (highKey < lowKey) {
+			return 0;
+		}
+		long range = range0(a, fromIndex, toIndex, lowKey, highKey);
+		return end(range) - start(range);
+	}
+
+	public static int lowerBound(float[] a, float key) {
+		return lowerBound0(a, 0, a.length, sortable(key));
+	}
+
+	public static int lowerBound(float[] a, int fromIndex, int toIndex, float key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return lowerBound0(a, fromIndex, toIndex, sortable(key));
+	}
+
+	public static int upperBound(float[] a, float key) {
+		return upperBound0(a, 0, a.length, sortable(key));
+	}
+
+	public static int upperBound(float[] a, int fromIndex, int toIndex, float key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return upperBound0(a, fromIndex, toIndex, sortable(key));
+	}
+
+	public static long equalRange(float[] a, float key) {
+		return range0(a, 0, a.length, sortable(key), sortable(key));
+	}
+
+	public static long equalRange(float[] a, int fromIndex, int toIndex, float key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return range0(a, fromIndex, toIndex, sortable(key), sortable(key));
+	}
+
+	public static int countInRange(float[] a, float low, float high) {
+		return countInRange(a, 0, a.length, low, high);
+	}
+
+	public static int countInRange(float[] a, int fromIndex, int toIndex, float low, float high) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		int lowKey = sortable(low);
+		int highKey = sortable(high);
+		if (highKey < lowKey) {
+			return 0;
+		}
+		long range = range0(a, fromIndex, toIndex, lowKey, highKey);
+		return end(range) - start(range);
+	}
+
+	public static int lowerBound(double[] a, double key) {
+		return lowerBound0(a, 0, a.length, sortable(key));
+	}
+
+	public static int lowerBound(double[] a, int fromIndex, int toIndex, double key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return lowerBound0(a, fromIndex, toIndex, sortable(key));
+	}
+
+	public static int upperBound(double[] a, double key) {
+		return upperBound0(a, 0, a.length, sortable(key));
+	}
+
+	public static int upperBound(double[] a, int fromIndex, int toIndex, double key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return upperBound0(a, fromIndex, toIndex, sortable(key));
+	}
+
+	public static long equalRange(double[] a, double key) {
+		return range0(a, 0, a.length, sortable(key), sortable(key));
+	}
+
+	public static long equalRange(double[] a, int fromIndex, int toIndex, double key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return range0(a, fromIndex, toIndex, sortable(key), sortable(key));
+	}
+
+	public static int countInRange(double[] a, double low, double high) {
+		return countInRange(a, 0, a.length, low, high);
+	}
+
+	public static int countInRange(double[] a, int fromIndex, int toIndex, double low, double high) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		long lowKey = sortable(low);
+		long highKey = sortable(high);
+		if (highKey < lowKey) {
+			return 0;
+		}
+		long range = range0(a, fromIndex, toIndex, lowKey, highKey);
+		return end(range) - start(range);
+	}
+
+	// Flip the magnitude bits of negative values, so that the bits order as Float.compare does. floatToIntBits
+	// collapses every NaN to the one that sorts last.
+	private static int sortable(float value) {
+		int bits = Float.floatToIntBits(value);
+		return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+	}
+
+	private static long sortable(double value) {
+		long bits = Double.doubleToLongBits(value);
+		return bits ^ ((bits >> 63) & 0x7FFFFFFFFFFFFFFFL);
+	}
+
+	private static int lowerBound0(int[] a, int fromIndex, int toIndex, int key) {
+		if (fromIndex >= toIndex) {
+			return fromIndex;
+		}
+		int mid = BiasedBinarySearch.biasedMidpoint32(fromIndex, toIndex);
+		boolean right = a[mid] < key;
+		int base = right ? mid + 1 : fromIndex;
+		int length = right ? toIndex - mid - 1 : mid - fromIndex;
+		while (length > 0) {
+			int half = length >>> 1;
+			int probe = base + half;
+			right = a[probe] < key;
+			base = right ? probe + 1 : base;
+			length = right ? length - half - 1 : half;
+		}
+		return base;
+	}
+
+	private static int upperBound0(int[] a, int fromIndex, int toIndex, int key) {
+		if (fromIndex >= toIndex) {
+			return fromIndex;
+		}
+		int mid = BiasedBinarySearch.biasedMidpoint32(fromIndex, toIndex);
+		boolean right = a[mid] <= key;
+		int base = right ? mid + 1 : fromIndex;
+		int length = right ? toIndex - mid - 1 : mid - fromIndex;
+		while (length > 0) {
+			int half = length >>> 1;
+			int probe = base + half;
+			right = a[probe] <= key;
+			base = right ? probe + 1 : base;
+			length = right ? length - half - 1 : half;
+		}
+		return base;
+	}
+
+	/**
+	 * [start, end) of the elements in [low, high]. Both bounds are searched together, picking halves with conditional
+	 * moves, until a probe falls between them; that exit is taken at most once, so it predicts well. Then each bound
+	 * finishes in its own half of the remaining window. The range0 overloads for the other types are the same.
+	 */
+	private static long range0(int[] a, int fromIndex, int toIndex, int low, int high) {
+		int base = fromIndex;
+		int length = toIndex - fromIndex;
+		int probe = length > 0 ? BiasedBinarySearch.biasedMidpoint32(fromIndex, toIndex) : fromIndex;
+		while (length > 0) {
+			int value = a[probe];
+			boolean right = value < low;
+			if (!right & value <= high) {
+				break;
+			}
+			length = right ? length - (probe + 1 - base) : probe - base;
+			base = right ? probe + 1 : base;
+			probe = base + (length >>> 1);
+		}
+		if (length == 0) {
+			return range(base, base);
+		}
+		int end = base + length;
+		int start = base;
+		int startLength = probe - base;
+		while (startLength > 0) {
+			int half = startLength >>> 1;
+			boolean startRight = a[start + half] < low;
+			start = startRight ? start + half + 1 : start;
+			startLength = startRight ? startLength - half - 1 : half;
+		}
+		base = probe + 1;
+		length = end - base;
+		while (length > 0) {
+			int half = length >>> 1;
+			boolean endRight = a[base + half] <= high;
+			base = endRight ? base + half + 1 : base;
+			length = endRight ? length - half - 1 : half;
+		}
+		return range(start, base);
+	}
+
+	private static int lowerBound0(long[] a, int fromIndex, int toIndex, long key) {
+		if (fromIndex >= toIndex) {
+			return fromIndex;
+		}
+		int mid = BiasedBinarySearch.biasedMidpoint64(fromIndex, toIndex);
+		boolean right = a[mid] < key;
+		int base = right ? mid + 1 : fromIndex;
+		int length = right ? toIndex - mid - 1 : mid - fromIndex;
+		while (length > 0) {
+			int half = length >>> 1;
+			int probe = base + half;
+			right = a[probe] < key;
+			base = right ? probe + 1 : base;
+			length = right ? length - half - 1 : half;
+		}
+		return base;
+	}
+
+	private static int upperBound0(long[] a, int fromIndex, int toIndex, long key) {
+		if (fromIndex >= toIndex) {
+			return fromIndex;
+		}
+		int mid = BiasedBinarySearch.biasedMidpoint64(fromIndex, toIndex);
+		boolean right = a[mid] <= key;
+		int base = right ? mid + 1 : fromIndex;
+		int length = right ? toIndex - mid - 1 : mid - fromIndex;
+		while (length > 0) {
+			int half = length >>> 1;
+			int probe = base + half;
+			right = a[probe] <= key;
+			base = right ? probe + 1 : base;
+			length = right ? length - half - 1 : half;
+		}
+		return base;
+	}
+
+	private static long range0(long[] a, int fromIndex, int toIndex, long low, long high) {
+		int base = fromIndex;
+		int length = toIndex - fromIndex;
+		int probe = length > 0 ? BiasedBinarySearch.biasedMidpoint64(fromIndex, toIndex) : fromIndex;
+		while (length > 0) {
+			long value = a[probe];
+			boolean right = value < low;
+			if (!right & value <= high) {
+				break;
+			}
+			length = right ? length - (probe + 1 - base) : probe - base;
+			base = right ? probe + 1 : base;
+			probe = base + (length >>> 1);
+		}
+		if (length == 0) {
+			return range(base, base);
+		}
+		int end = base + length;
+		int start = base;
+		int startLength = probe - base;
+		while (startLength > 0) {
+			int half = startLength >>> 1;
+			boolean startRight = a[start + half] < low;
+			start = startRight ? start + half + 1 : start;
+			startLength = startRight ? startLength - half - 1 : half;
+		}
+		base = probe + 1;
+		length = end - base;
+		while (length > 0) {
+			int half = length >>> 1;
+			boolean endRight = a[base + half] <= high;
+			base = endRight ? base + half + 1 : base;
+			length = endRight ? length - half - 1 : half;
+		}
+		return range(start, base);
+	}
+
+	private static int lowerBound0(short[] a, int fromIndex, int toIndex, int key) {
+		if (fromIndex >= toIndex) {
+			return fromIndex;
+		}
+		int mid = BiasedBinarySearch.biasedMidpoint16(fromIndex, toIndex);
+		boolean right = a[mid] < key;
+		int base = right ? mid + 1 : fromIndex;
+		int length = right ? toIndex - mid - 1 : mid - fromIndex;
+		while (length > 0) {
+			int half = length >>> 1;
+			int probe = base + half;
+			right = a[probe] < key;
+			base = right ? probe + 1 : base;
+			length = right ? length - half - 1 : half;
+		}
+		return base;
+	}
+
+	private static int upperBound0(short[] a, int fromIndex, int toIndex, int key) {
+		if (fromIndex >= toIndex) {
+			return fromIndex;
+		}
+		int mid = BiasedBinarySearch.biasedMidpoint16(fromIndex, toIndex);
+		boolean right = a[mid] <= key;
+		int base = right ? mid + 1 : fromIndex;
+		int length = right ? toIndex - mid - 1 : mid - fromIndex;
+		while (length > 0) {
+			int half = length >>> 1;
+			int probe = base + half;
+			right = a[probe] <= key;
+			base = right ? probe + 1 : base;
+			length = right ? length - half - 1 : half;
+		}
+		return base;
+	}
+
+	private static long range0(short[] a, int fromIndex, int toIndex, int low, int high) {
+		int base = fromIndex;
+		int length = toIndex - fromIndex;
+		int probe = length > 0 ? BiasedBinarySearch.biasedMidpoint16(fromIndex, toIndex) : fromIndex;
+		while (length > 0) {
+			int value = a[probe];
+			boolean right = value < low;
+			if (!right & value <= high) {
+				break;
+			}
+			length = right ? length - (probe + 1 - base) : probe - base;
+			base = right ? probe + 1 : base;
+			probe = base + (length >>> 1);
+		}
+		if (length == 0) {
+			return range(base, base);
+		}
+		int end = base + length;
+		int start = base;
+		int startLength = probe - base;
+		while (startLength > 0) {
+			int half = startLength >>> 1;
+			boolean startRight = a[start + half] < low;
+			start = startRight ? start + half + 1 : start;
+			startLength = startRight ? startLength - half - 1 : half;
+		}
+		base = probe + 1;
+		length = end - base;
+		while (length > 0) {
+			int half = length >>> 1;
+			boolean endRight = a[base + half] <= high;
+			base = endRight ? base + half + 1 : base;
+			length = endRight ? length - half - 1 : half;
+		}
+		return range(start, base);
+	}
+
+	private static int lowerBound0(char[] a, int fromIndex, int toIndex, int key) {
+		if (fromIndex >= toIndex) {
+			return fromIndex;
+		}
+		int mid = BiasedBinarySearch.biasedMidpoint16(fromIndex, toIndex);
+		boolean right = a[mid] < key;
+		int base = right ? mid + 1 : fromIndex;
+		int length = right ? toIndex - mid - 1 : mid - fromIndex;
+		while (length > 0) {
+			int half = length >>> 1;
+			int probe = base + half;
+			right = a[probe] < key;
+			base = right ? probe + 1 : base;
+			length = right ? length - half - 1 : half;
+		}
+		return base;
+	}
+
+	private static int upperBound0(char[] a, int fromIndex, int toIndex, int key) {
+		if (fromIndex >= toIndex) {
+			return fromIndex;
+		}
+		int mid = BiasedBinarySearch.biasedMidpoint16(fromIndex, toIndex);
+		boolean right = a[mid] <= key;
+		int base = right ? mid + 1 : fromIndex;
+		int length = right ? toIndex - mid - 1 : mid - fromIndex;
+		while (length > 0) {
+			int half = length >>> 1;
+			int probe = base + half;
+			right = a[probe] <= key;
+			base = right ? probe + 1 : base;
+			length = right ? length - half - 1 : half;
+		}
+		return base;
+	}
+
+	private static long range0(char[] a, int fromIndex, int toIndex, int low, int high) {
+		int base = fromIndex;
+		int length = toIndex - fromIndex;
+		int probe = length > 0 ? BiasedBinarySearch.biasedMidpoint16(fromIndex, toIndex) : fromIndex;
+		while (length > 0) {
+			int value = a[probe];
+			boolean right = value < low;
+			if (!right & value <= high) {
+				break;
+			}
+			length = right ? length - (probe + 1 - base) : probe - base;
+			base = right ? probe + 1 : base;
+			probe = base + (length >>> 1);
+		}
+		if (length == 0) {
+			return range(base, base);
+		}
+		int end = base + length;
+		int start = base;
+		int startLength = probe - base;
+		while (startLength > 0) {
+			int half = startLength >>> 1;
+			boolean startRight = a[start + half] < low;
+			start = startRight ? start + half + 1 : start;
+			startLength = startRight ? startLength - half - 1 : half;
+		}
+		base = probe + 1;
+		length = end - base;
+		while (length > 0) {
+			int half = length >>> 1;
+			boolean endRight = a[base + half] <= high;
+			base = endRight ? base + half + 1 : base;
+			length = endRight ? length - half - 1 : half;
+		}
+		return range(start, base);
+	}
+
+	private static int lowerBound0(byte[] a, int fromIndex, int toIndex, int key) {
+		if (fromIndex >= toIndex) {
+			return fromIndex;
+		}
+		int mid = BiasedBinarySearch.biasedMidpoint8(fromIndex, toIndex);
+		boolean right = a[mid] < key;
+		int base = right ? mid + 1 : fromIndex;
+		int length = right ? toIndex - mid - 1 : mid - fromIndex;
+		while (length > 0) {
+			int half = length >>> 1;
+			int probe = base + half;
+			right = a[probe] < key;
+			base = right ? probe + 1 : base;
+			length = right ? length - half - 1 : half;
+		}
+		return base;
+	}
+
+	private static int upperBound0(byte[] a, int fromIndex, int toIndex, int key) {
+		if (fromIndex >= toIndex) {
+			return fromIndex;
+		}
+		int mid = BiasedBinarySearch.biasedMidpoint8(fromIndex, toIndex);
+		boolean right = a[mid] <= key;
+		int base = right ? mid + 1 : fromIndex;
+		int length = right ? toIndex - mid - 1 : mid - fromIndex;
+		while (length > 0) {
+			int half = length >>> 1;
+			int probe = base + half;
+			right = a[probe] <= key;
+			base = right ? probe + 1 : base;
+			length = right ? length - half - 1 : half;
+		}
+		return base;
+	}
+
+	private static long range0(byte[] a, int fromIndex, int toIndex, int low, int high) {
+		int base = fromIndex;
+		int length = toIndex - fromIndex;
+		int probe = length > 0 ? BiasedBinarySearch.biasedMidpoint8(fromIndex, toIndex) : fromIndex;
+		while (length > 0) {
+			int value = a[probe];
+			boolean right = value < low;
+			if (!right & value <= high) {
+				break;
+			}
+			length = right ? length - (probe + 1 - base) : probe - base;
+			base = right ? probe + 1 : base;
+			probe = base + (length >>> 1);
+		}
+		if (length == 0) {
+			return range(base, base);
+		}
+		int end = base + length;
+		int start = base;
+		int startLength = probe - base;
+		while (startLength > 0) {
+			int half = startLength >>> 1;
+			boolean startRight = a[start + half] < low;
+			start = startRight ? start + half + 1 : start;
+			startLength = startRight ? startLength - half - 1 : half;
+		}
+		base = probe + 1;
+		length = end - base;
+		while (length > 0) {
+			int half = length >>> 1;
+			boolean endRight = a[base + half] <= high;
+			base = endRight ? base + half + 1 : base;
+			length = endRight ? length - half - 1 : half;
+		}
+		return range(start, base);
+	}
+
+	private static int lowerBound0(float[] a, int fromIndex, int toIndex, int key) {
+		if (fromIndex >= toIndex) {
+			return fromIndex;
+		}
+		int mid = BiasedBinarySearch.biasedMidpoint32(fromIndex, toIndex);
+		boolean right = sortable(a[mid]) < key;
+		int base = right ? mid + 1 : fromIndex;
+		int length = right ? toIndex - mid - 1 : mid - fromIndex;
+		while (length > 0) {
+			int half = length >>> 1;
+			int probe = base + half;
+			right = sortable(a[probe]) < key;
+			base = right ? probe + 1 : base;
+			length = right ? length - half - 1 : half;
+		}
+		return base;
+	}
+
+	private static int upperBound0(float[] a, int fromIndex, int toIndex, int key) {
+		if (fromIndex >= toIndex) {
+			return fromIndex;
+		}
+		int mid = BiasedBinarySearch.biasedMidpoint32(fromIndex, toIndex);
+		boolean right = sortable(a[mid]) <= key;
+		int base = right ? mid + 1 : fromIndex;
+		int length = right ? toIndex - mid - 1 : mid - fromIndex;
+		while (length > 0) {
+			int half = length >>> 1;
+			int probe = base + half;
+			right = sortable(a[probe]) <= key;
+			base = right ? probe + 1 : base;
+			length = right ? length - half - 1 : half;
+		}
+		return base;
+	}
+
+	private static long range0(float[] a, int fromIndex, int toIndex, int low, int high) {
+		int base = fromIndex;
+		int length = toIndex - fromIndex;
+		int probe = length > 0 ? BiasedBinarySearch.biasedMidpoint32(fromIndex, toIndex) : fromIndex;
+		while (length > 0) {
+			int value = sortable(a[probe]);
+			boolean right = value < low;
+			if (!right & value <= high) {
+				break;
+			}
+			length = right ? length - (probe + 1 - base) : probe - base;
+			base = right ? probe + 1 : base;
+			probe = base + (length >>> 1);
+		}
+		if (length == 0) {
+			return range(base, base);
+		}
+		int end = base + length;
+		int start = base;
+		int startLength = probe - base;
+		while (startLength > 0) {
+			int half = startLength >>> 1;
+			boolean startRight = sortable(a[start + half]) < low;
+			start = startRight ? start + half + 1 : start;
+			startLength = startRight ? startLength - half - 1 : half;
+		}
+		base = probe + 1;
+		length = end - base;
+		while (length > 0) {
+			int half = length >>> 1;
+			boolean endRight = sortable(a[base + half]) <= high;
+			base = endRight ? base + half + 1 : base;
+			length = endRight ? length - half - 1 : half;
+		}
+		return range(start, base);
+	}
+
+	private static int lowerBound0(double[] a, int fromIndex, int toIndex, long key) {
+		if (fromIndex >= toIndex) {
+			return fromIndex;
+		}
+		int mid = BiasedBinarySearch.biasedMidpoint64(fromIndex, toIndex);
+		boolean right = sortable(a[mid]) < key;
+		int base = right ? mid + 1 : fromIndex;
+		int length = right ? toIndex - mid - 1 : mid - fromIndex;
+		while (length > 0) {
+			int half = length >>> 1;
+			int probe = base + half;
+			right = sortable(a[probe]) < key;
+			base = right ? probe + 1 : base;
+			length = right ? length - half - 1 : half;
+		}
+		return base;
+	}
+
+	private static int upperBound0(double[] a, int fromIndex, int toIndex, long key) {
+		if (fromIndex >= toIndex) {
+			return fromIndex;
+		}
+		int mid = BiasedBinarySearch.biasedMidpoint64(fromIndex, toIndex);
+		boolean right = sortable(a[mid]) <= key;
+		int base = right ? mid + 1 : fromIndex;
+		int length = right ? toIndex - mid - 1 : mid - fromIndex;
+		while (length > 0) {
+			int half = length >>> 1;
+			int probe = base + half;
+			right = sortable(a[probe]) <= key;
+			base = right ? probe + 1 : base;
+			length = right ? length - half - 1 : half;
+		}
+		return base;
+	}
+
+	private static long range0(double[] a, int fromIndex, int toIndex, long low, long high) {
+		int base = fromIndex;
+		int length = toIndex - fromIndex;
+		int probe = length > 0 ? BiasedBinarySearch.biasedMidpoint64(fromIndex, toIndex) : fromIndex;
+		while (length > 0) {
+			long value = sortable(a[probe]);
+			boolean right = value < low;
+			if (!right & value <= high) {
+				break;
+			}
+			length = right ? length - (probe + 1 - base) : probe - base;
+			base = right ? probe + 1 : base;
+			probe = base + (length >>> 1);
+		}
+		if (length == 0) {
+			return range(base, base);
+		}
+		int end = base + length;
+		int start = base;
+		int startLength = probe - base;
+		while (startLength > 0) {
+			int half = startLength >>> 1;
+			boolean startRight = sortable(a[start + half]) < low;
+			start = startRight ? start + half + 1 : start;
+			startLength = startRight ? startLength - half - 1 : half;
+		}
+		base = probe + 1;
+		length = end - base;
+		while (length > 0) {
+			int half = length >>> 1;
+			boolean endRight = sortable(a[base + half]) <= high;
+			base = endRight ? base + half + 1 : base;
+			length = endRight ? length - half - 1 : half;
+		}
+		return range(start, base);
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Chooses the 32 bit constant used by BiasedBinarySearch, once, when that class is initialized. In order of
+ * precedence:
+ * <ol>
+ * <li>the value of the system property org.reific.binarysearch.biased.constant, if set;</li>
+ * <li>the entry for the geometry of this machine (see {@link CacheGeometry#key()}) in the constants table;</li>
+ * <li>the default entry of the constants table;</li>
+ * <li>the constant compiled into BiasedBinarySearch.</li>
+ * </ol>
+ * The constants table is the properties file named by the system property org.reific.binarysearch.biased.constants,
+ * or else a biased-constants.properties at the root of the classpath (as written by the TuneConstants tool), layered
+ * over the biased-constants.properties resource shipped alongside this class. Values may be decimal or 0x
+ * hexadecimal. A table may declare its format version (format=1); tables of any other version are rejected. A bad
+ * value given explicitly (by either system property) is an error, rather than silently replaced.
+ */
+final class BiasingConstant {
+
+	static final String CONSTANT_PROPERTY = "org.reific.binarysearch.biased.constant";
+	static final String TABLE_PROPERTY = "org.reific.binarysearch.biased.constants";
+	static final String TABLE_RESOURCE = "biased-constants.properties";
+	static final String DEFAULT_KEY = "default";
+	static final String FORMAT_KEY = "format";
+	static final String FORMAT = "1";
+
+	private BiasingConstant() {
+	}
+
+	static int select(int compiledConstant) {
+		String override = System.getProperty(CONSTANT_PROPERTY);
+		if (override != null) {
+			return parse(CONSTANT_PROPERTY, override);
+		}
+		return select(loadTable(System.getProperty(TABLE_PROPERTY)), CacheGeometry.detect(), compiledConstant);
+	}
+
+	static int select(Properties table, CacheGeometry geometry, int compiledConstant) {
+		String key = geometry == null ? null : geometry.key();
+		String value = key == null ? null : table.getProperty(key);
+		if (value == null) {
+			key = DEFAULT_KEY;
+			value = table.getProperty(DEFAULT_KEY);
+		}
+		return value == null ? compiledConstant : parse(key, value);
+	}
+
+	static Properties loadTable(String path) {
+		if (path != null) {
+			Properties table = new Properties();
+			try (InputStream in = new FileInputStream(path)) {
+				table.load(in);
+			} catch (IOException e) {
+				throw new IllegalArgumentException(TABLE_PROPERTY + "=" + path + " could not be read", e);
+			}
+			checkFormat(path, table);
+			return table;
+		}
+		Properties shipped = new Properties();
+		try (InputStream in = BiasingConstant.class.getResourceAsStream(TABLE_RESOURCE)) {
+			if (in != null) {
+				shipped.load(in);
+			}
+		} catch (IOException e) {
+			// The compiled constant will do
+			shipped.clear();
+		}
+		Properties table = new Properties(shipped);
+		try (InputStream in = BiasingConstant.class.getResourceAsStream("/" + TABLE_RESOURCE)) {
+			if (in != null) {
+				table.load(in);
+				checkFormat("/" + TABLE_RESOURCE, table);
+			}
+		} catch (IOException e) {
+			table = shipped;
+		}
+		return table;
+	}
+
+	private static void checkFormat(String name, Properties table) {
+		String format = table.getProperty(FORMAT_KEY, FORMAT);
+		if (!format.trim().equals(FORMAT)) {
+			throw new IllegalArgumentException(name + " has format " + format + ", expected " + FORMAT);
+		}
+	}
+
+	private static int parse(String key, String value) {
+		try {
+			// Integer.decode rejects constants with the top bit set, which are legal masks
+			return Long.decode(value.trim()).intValue();
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Bad biasing constant " + key + "=" + value, e);
+		}
+	}
+}
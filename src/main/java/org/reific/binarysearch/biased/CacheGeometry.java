@@ -0,0 +1,168 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The data cache and page geometry of the machine we are running on, as reported by Linux. Two machines with the same
+ * geometry suffer the same conflict misses, so the geometry identifies which evolved constant to use.
+ * <p>
+ * Only the base page size is considered. Transparent huge pages may back some arrays with 2M pages, but not
+ * predictably so, and a constant evolved with the 2M TLB in its specs covers both.
+ */
+final class CacheGeometry {
+
+	static final File SYS_CPU0_CACHE = new File("/sys/devices/system/cpu/cpu0/cache");
+	static final File PROC_SELF_SMAPS = new File("/proc/self/smaps");
+
+	static final class Cache {
+		final int level;
+		final boolean data;
+		final int numberOfSets;
+		final int lineSizeInBytes;
+		final int ways;
+
+		Cache(int level, boolean data, int numberOfSets, int lineSizeInBytes, int ways) {
+			this.level = level;
+			this.data = data;
+			this.numberOfSets = numberOfSets;
+			this.lineSizeInBytes = lineSizeInBytes;
+			this.ways = ways;
+		}
+	}
+
+	private final List<Cache> caches;
+	private final int pageSizeInBytes;
+
+	CacheGeometry(List<Cache> caches, int pageSizeInBytes) {
+		List<Cache> sorted = new ArrayList<Cache>(caches);
+		Collections.sort(sorted, new Comparator<Cache>() {
+			@Override
+			public int compare(Cache o1, Cache o2) {
+				return o1.level != o2.level ? Integer.compare(o1.level, o2.level) : Boolean.compare(o2.data, o1.data);
+			}
+		});
+		this.caches = Collections.unmodifiableList(sorted);
+		this.pageSizeInBytes = pageSizeInBytes;
+	}
+
+	/**
+	 * @return the geometry of this machine, or null if it cannot be determined (e.g. not Linux)
+	 */
+	static CacheGeometry detect() {
+		return detect(SYS_CPU0_CACHE, PROC_SELF_SMAPS);
+	}
+
+	static CacheGeometry detect(File cacheDirectory, File smaps) {
+		try {
+			File[] indices = cacheDirectory.listFiles();
+			if (indices == null) {
+				return null;
+			}
+			List<Cache> caches = new ArrayList<Cache>();
+			for (File index : indices) {
+				if (!index.getName().startsWith("index")) {
+					continue;
+				}
+				String type = readLine(new File(index, "type"));
+				if (!"Data".equals(type) && !"Unified".equals(type)) {
+					continue;
+				}
+				caches.add(new Cache(
+						Integer.parseInt(readLine(new File(index, "level"))),
+						"Data".equals(type),
+						Integer.parseInt(readLine(new File(index, "number_of_sets"))),
+						Integer.parseInt(readLine(new File(index, "coherency_line_size"))),
+						Integer.parseInt(readLine(new File(index, "ways_of_associativity")))));
+			}
+			int pageSizeInBytes = pageSizeInBytes(smaps);
+			if (caches.isEmpty() || pageSizeInBytes <= 0) {
+				return null;
+			}
+			return new CacheGeometry(caches, pageSizeInBytes);
+		} catch (IOException | RuntimeException e) {
+			// Missing or malformed entries (some virtual machines report none, or zeros)
+			return null;
+		}
+	}
+
+	/**
+	 * The first KernelPageSize in smaps is the page size of the first mapping, which is the base page size unless the
+	 * JVM's own text happens to be mapped with huge pages.
+	 */
+	private static int pageSizeInBytes(File smaps) throws IOException {
+		try (BufferedReader reader = new BufferedReader(new FileReader(smaps))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith("KernelPageSize:")) {
+					String[] fields = line.substring("KernelPageSize:".length()).trim().split("\\s+");
+					if (fields.length == 2 && fields[1].equals("kB")) {
+						return Integer.parseInt(fields[0]) * 1024;
+					}
+					return -1;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private static String readLine(File file) throws IOException {
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String line = reader.readLine();
+			if (line == null) {
+				throw new IOException("empty " + file);
+			}
+			return line.trim();
+		}
+	}
+
+	List<Cache> caches() {
+		return caches;
+	}
+
+	int pageSizeInBytes() {
+		return pageSizeInBytes;
+	}
+
+	/**
+	 * The key of this geometry in the constants table, e.g. L1d_64x64x8,L2_512x64x8,L3_8192x64x16,page_4096 for 64
+	 * sets of 64 byte lines, 8 ways, at level 1 (and so on), and 4k pages.
+	 */
+	String key() {
+		StringBuilder key = new StringBuilder();
+		for (Cache cache : caches) {
+			key.append('L').append(cache.level).append(cache.data ? "d" : "").append('_')
+					.append(cache.numberOfSets).append('x')
+					.append(cache.lineSizeInBytes).append('x')
+					.append(cache.ways).append(',');
+		}
+		return key.append("page_").append(pageSizeInBytes).toString();
+	}
+
+	@Override
+	public String toString() {
+		return key();
+	}
+}
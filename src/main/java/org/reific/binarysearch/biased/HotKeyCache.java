@@ -0,0 +1,141 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A small direct-mapped cache of the results of BiasedBinarySearch over one sorted int array, for workloads where a
+ * few keys make up most lookups (e.g. a Zipf distribution). A hit costs one load from a table small enough to stay in
+ * L1 or L2, instead of a chain of probes into the array.
+ * <p>
+ * Each entry packs a key and its result into one long, so entries are read and replaced atomically without locks;
+ * concurrent misses on the same slot simply race, and either result is correct. An entry is only trusted if its key
+ * hashes to its own slot, so the table is initialized with keys that hash elsewhere, rather than a sentinel that a
+ * real key could equal.
+ * <p>
+ * With statistics enabled, hits and misses are counted (approximately: the counts are not synchronized, to keep the
+ * hit path free of atomic operations), to show whether the cache pays for itself on a given workload.
+ * <p>
+ * The array is not copied, and must not be modified while the cache is in use.
+ */
+public final class HotKeyCache {
+
+	// 32KB, the size of a typical L1 data cache
+	static final int DEFAULT_CAPACITY = 4096;
+
+	private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+	private final int[] haystack;
+	private final int fromIndex;
+	private final int toIndex;
+	private final AtomicLongArray entries;
+	private final int shift;
+	private final boolean statistics;
+	private long hits;
+	private long misses;
+
+	public HotKeyCache(int[] haystack) {
+		this(haystack, 0, haystack.length, DEFAULT_CAPACITY, false);
+	}
+
+	/**
+	 * Cache searches of the (sorted) range [fromIndex, toIndex) of haystack.
+	 * 
+	 * @param capacity the number of entries, rounded up to a power of two (8 bytes each)
+	 * @param statistics whether to count hits and misses
+	 */
+	public HotKeyCache(int[] haystack, int fromIndex, int toIndex, int capacity, boolean statistics) {
+		rangeCheck(haystack.length, fromIndex, toIndex);
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("capacity(" + capacity + ") not in [1, 2^30]");
+		}
+		this.haystack = haystack;
+		this.fromIndex = fromIndex;
+		this.toIndex = toIndex;
+		this.statistics = statistics;
+		int bits = 32 - Integer.numberOfLeadingZeros(capacity - 1);
+		// A shift of 32 would be a shift of 0, so a single slot still takes one bit of hash
+		this.shift = 32 - Math.max(1, bits);
+		this.entries = new AtomicLongArray(1 << (32 - shift));
+		// Key 0 hashes to slot 0, and key 1 to some other slot
+		entries.set(0, pack(1, 0));
+		for (int slot = 1; slot < entries.length(); slot++) {
+			entries.set(slot, pack(0, 0));
+		}
+	}
+
+	private int slot(int key) {
+		return (key * GOLDEN_RATIO) >>> shift;
+	}
+
+	private static long pack(int key, int result) {
+		return ((long) key << 32) | (result & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Searches for key, with the same contract as Arrays.binarySearch over the cached range
+	 */
+	public int search(int key) {
+		int slot = slot(key);
+		long entry = entries.get(slot);
+		if ((int) (entry >>> 32) == key) {
+			if (statistics) {
+				hits++;
+			}
+			return (int) entry;
+		}
+		if (statistics) {
+			misses++;
+		}
+		int result = BiasedBinarySearch.binarySearch(haystack, fromIndex, toIndex, key);
+		entries.lazySet(slot, pack(key, result));
+		return result;
+	}
+
+	public long hits() {
+		return hits;
+	}
+
+	public long misses() {
+		return misses;
+	}
+
+	/**
+	 * @return the fraction of searches that hit, or 0 if there have been none (or statistics are disabled)
+	 */
+	public double hitRatio() {
+		long hits = this.hits;
+		long total = hits + misses;
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	// Copied from Arrays.binarySearch
+	private static void rangeCheck(int arrayLength, int fromIndex, int toIndex) {
+		if (fromIndex > toIndex) {
+			throw new IllegalArgumentException(
+					"fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+		}
+		if (fromIndex < 0) {
+			throw new ArrayIndexOutOfBoundsException(fromIndex);
+		}
+		if (toIndex > arrayLength) {
+			throw new ArrayIndexOutOfBoundsException(toIndex);
+		}
+	}
+
+}
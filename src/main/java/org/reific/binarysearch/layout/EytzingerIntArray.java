@@ -0,0 +1,223 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.layout;
+
+/**
+ * A sorted int array rearranged into Eytzinger (breadth-first) order. Element k of the layout is the root of an
+ * implicit binary search tree whose children are 2k and 2k + 1, so the first levels of every search share a handful of
+ * cache lines, and the 16 descendants four levels below node k are adjacent in memory.
+ * <p>
+ * Searches descend the tree without branching on the comparison result. While the descendants four levels down exist,
+ * each step also loads the first of them. Java has no prefetch instruction, so this is an ordinary load whose value is
+ * discarded; it does not depend on the comparisons in between, so the CPU issues it early and the line is (usually)
+ * already cached by the time the search reaches it.
+ * <p>
+ * Results are expressed in terms of positions in the original sorted array. Instances are immutable and may be shared
+ * between threads.
+ */
+public final class EytzingerIntArray {
+
+	// Searches step to 2k + 1, which must not overflow
+	static final int MAX_SIZE = (1 << 30) - 1;
+
+	// Number of searches advanced in lock-step by the batched search
+	private static final int GROUP_SIZE = 8;
+
+	// layout[1..size] holds the tree, layout[0] is unused
+	private final int[] layout;
+	private final int size;
+	// Depth of the deepest (possibly incomplete) level of the tree, with the root at depth 0
+	private final int height;
+	// Nodes at or below this index have descendants four levels down
+	private final int prefetchLimit;
+	// Always zero. Folding the prefetched values into the result through a field the JIT cannot constant-fold
+	// keeps the prefetch loads from being eliminated as dead code.
+	private final int prefetchMask;
+
+	public EytzingerIntArray(int[] sorted) {
+		this(sorted, 0, sorted.length);
+	}
+
+	/**
+	 * Build the layout from the (sorted) range [fromIndex, toIndex) of the given array. Positions returned by searches
+	 * are relative to fromIndex.
+	 */
+	public EytzingerIntArray(int[] sorted, int fromIndex, int toIndex) {
+		rangeCheck(sorted.length, fromIndex, toIndex);
+		if (toIndex - fromIndex > MAX_SIZE) {
+			throw new IllegalArgumentException("size(" + (toIndex - fromIndex) + ") > " + MAX_SIZE);
+		}
+		this.size = toIndex - fromIndex;
+		this.layout = new int[size + 1];
+		this.height = height(size);
+		this.prefetchLimit = size >>> 4;
+		this.prefetchMask = 0;
+		build(sorted, fromIndex, 1);
+	}
+
+	/**
+	 * In-order walk of the implicit tree, consuming the sorted array from position i.
+	 * @return the position of the next element of the sorted array to be placed
+	 */
+	private int build(int[] sorted, int i, int k) {
+		if (k <= size) {
+			i = build(sorted, i, 2 * k);
+			layout[k] = sorted[i++];
+			i = build(sorted, i, 2 * k + 1);
+		}
+		return i;
+	}
+
+	/**
+	 * @return the layout itself (not a copy), with the tree in [1, size]
+	 */
+	int[] layout() {
+		return layout;
+	}
+
+	/**
+	 * @return the depth of the deepest level of a tree of size nodes
+	 */
+	static int height(int size) {
+		return size == 0 ? 0 : 31 - Integer.numberOfLeadingZeros(size);
+	}
+
+	/**
+	 * @return the number of elements
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Searches for the specified value, with the same contract as Arrays.binarySearch (over the original sorted array).
+	 */
+	public int search(int key) {
+		int k = lowerBoundNode(key);
+		if (k != 0 && layout[k] == key) {
+			return positionOfNode(k);
+		}
+		return -(positionOf(k) + 1);
+	}
+
+	/**
+	 * Searches for each of keys, storing the result for keys[i] (as defined by {@link #search(int)}) in results[i].
+	 * <p>
+	 * The keys are searched in groups, advancing every search of a group by one level before any of them takes the
+	 * next. The loads within a round are independent of each other, so their cache misses overlap instead of forming
+	 * one long chain of dependent misses per key.
+	 */
+	public void search(int[] keys, int[] results) {
+		if (results.length < keys.length) {
+			throw new IllegalArgumentException(
+					"results.length(" + results.length + ") < keys.length(" + keys.length + ")");
+		}
+		int[] layout = this.layout;
+		int[] nodes = new int[GROUP_SIZE];
+		for (int group = 0; group < keys.length; group += GROUP_SIZE) {
+			int lanes = Math.min(GROUP_SIZE, keys.length - group);
+			for (int lane = 0; lane < lanes; lane++) {
+				nodes[lane] = 1;
+			}
+			// Every search walks past a leaf after height or height + 1 steps
+			for (int level = 0; level <= height; level++) {
+				for (int lane = 0; lane < lanes; lane++) {
+					int k = nodes[lane];
+					if (k <= size) {
+						nodes[lane] = 2 * k + (layout[k] < keys[group + lane] ? 1 : 0);
+					}
+				}
+			}
+			for (int lane = 0; lane < lanes; lane++) {
+				int k = nodes[lane];
+				k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+				results[group + lane] = k != 0 && layout[k] == keys[group + lane]
+						? positionOfNode(k)
+						: -(positionOf(k) + 1);
+			}
+		}
+	}
+
+	/**
+	 * @return the position of the first element that is greater than or equal to key, or size() if there is none
+	 */
+	public int lowerBound(int key) {
+		return positionOf(lowerBoundNode(key));
+	}
+
+	/**
+	 * @return the number of elements strictly less than key
+	 */
+	public int rank(int key) {
+		return lowerBound(key);
+	}
+
+	private int positionOf(int k) {
+		return k == 0 ? size : positionOfNode(k);
+	}
+
+	/**
+	 * @return the node holding the first element greater than or equal to key, or 0 if there is none
+	 */
+	private int lowerBoundNode(int key) {
+		int[] layout = this.layout;
+		int prefetched = 0;
+		int k = 1;
+		while (k <= prefetchLimit) {
+			prefetched ^= layout[k << 4];
+			k = 2 * k + (layout[k] < key ? 1 : 0);
+		}
+		while (k <= size) {
+			k = 2 * k + (layout[k] < key ? 1 : 0);
+		}
+		// k has walked past a leaf. Each 1 bit in the low order bits of k records a step to the right (a node less than
+		// key), so undo the right steps after the last left step, and the left step itself.
+		k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+		return k | (prefetched & prefetchMask);
+	}
+
+	private int positionOfNode(int k) {
+		return positionOfNode(k, height, size);
+	}
+
+	/**
+	 * The position in sorted order of node k. In a perfect tree of the same height this is a simple function of the
+	 * depth of k and its offset within its level; the leaves missing from the last level of a complete tree that would
+	 * precede it in order are then subtracted.
+	 */
+	static int positionOfNode(int k, int height, int size) {
+		int depth = 31 - Integer.numberOfLeadingZeros(k);
+		int r = ((2 * (k - (1 << depth)) + 1) << (height - depth)) - 1;
+		int missing = (1 << height) + ((r + 1) >>> 1) - 1 - size;
+		return missing > 0 ? r - missing : r;
+	}
+
+	// Copied from Arrays.binarySearch
+	private static void rangeCheck(int arrayLength, int fromIndex, int toIndex) {
+		if (fromIndex > toIndex) {
+			throw new IllegalArgumentException(
+					"fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+		}
+		if (fromIndex < 0) {
+			throw new ArrayIndexOutOfBoundsException(fromIndex);
+		}
+		if (toIndex > arrayLength) {
+			throw new ArrayIndexOutOfBoundsException(toIndex);
+		}
+	}
+
+}
@@ -0,0 +1,148 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.layout;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chooses where to put the file of a {@link MappedIntArray} so that it is backed by huge pages, the only way to get
+ * them for data Java code can reach without native code (Java cannot madvise a mapping). With 2MB pages a data TLB
+ * of about 1500 entries covers 3GB instead of 6MB, and the aliasing of large power-of-two strides in the TLB sets,
+ * one of the things BiasedBinarySearch works around, mostly goes away.
+ * <p>
+ * Linux offers two kinds of file system for this, found from /proc/mounts: hugetlbfs, whose files always use (reserved)
+ * huge pages, and tmpfs mounted with huge=always or huge=within_size, which uses transparent huge pages where it can.
+ * Either way the files live in memory, and are shared by every process that maps them. The layout of a MappedIntArray
+ * starts at a huge page boundary, and its top levels come first, so the hottest nodes of every search share one huge
+ * page.
+ */
+public final class HugePages {
+
+	// The huge page size on x86-64 (and the usual one on arm64)
+	public static final long HUGE_PAGE_SIZE = 2 * 1024 * 1024;
+
+	private static final File MOUNTS = new File("/proc/mounts");
+
+	private HugePages() {
+	}
+
+	/**
+	 * @return a writable directory whose files are backed by 2MB pages, or null if there is none
+	 */
+	public static File hugePageDirectory() {
+		return directory(MOUNTS, true);
+	}
+
+	/**
+	 * @return a writable directory for files of the same data with ordinary 4K pages, for comparison: a tmpfs without
+	 *         huge pages (usually /dev/shm) so the data is in memory either way, or failing that the temporary directory
+	 */
+	public static File smallPageDirectory() {
+		File directory = directory(MOUNTS, false);
+		return directory != null ? directory : new File(System.getProperty("java.io.tmpdir"));
+	}
+
+	/**
+	 * @return the huge page directory if there is one, otherwise the small page directory
+	 */
+	public static File directory() {
+		File directory = hugePageDirectory();
+		return directory != null ? directory : smallPageDirectory();
+	}
+
+	static File directory(File mounts, boolean huge) {
+		List<String> lines = new ArrayList<String>();
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(mounts), StandardCharsets.UTF_8))) {
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				lines.add(line);
+			}
+		} catch (IOException e) {
+			// Not Linux
+			return null;
+		}
+		// Prefer /dev/shm, which is meant for shared memory, and never use the kernel's own tmpfs mounts (e.g. cgroups)
+		File found = null;
+		for (String line : lines) {
+			String[] fields = line.split(" ");
+			if (fields.length < 4) {
+				continue;
+			}
+			File mountPoint = new File(unescape(fields[1]));
+			if (mountPoint.getPath().startsWith("/sys/") || mountPoint.getPath().startsWith("/proc/")) {
+				continue;
+			}
+			// A hugetlbfs is never small pages, even with a page size other than 2MB (e.g. 1G, which MappedIntArray
+			// does not pad to, and hugetlbfs would reject)
+			boolean suitable = huge
+					? isHuge(fields[2], fields[3])
+					: fields[2].equals("tmpfs") && !isHuge(fields[2], fields[3]);
+			if (suitable && mountPoint.isDirectory() && mountPoint.canWrite()) {
+				if (found == null || mountPoint.getPath().equals("/dev/shm")) {
+					found = mountPoint;
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * @return true if files on a file system of the given type, mounted with the given options, are backed by 2MB pages
+	 */
+	static boolean isHuge(String type, String options) {
+		List<String> list = new ArrayList<String>();
+		for (String option : options.split(",")) {
+			list.add(option);
+		}
+		if (type.equals("hugetlbfs")) {
+			// Without a pagesize option, the default huge page size, which is 2MB on x86-64
+			for (String option : list) {
+				if (option.startsWith("pagesize=")) {
+					return option.equals("pagesize=2M") || option.equals("pagesize=2048k");
+				}
+			}
+			return true;
+		}
+		return type.equals("tmpfs") && (list.contains("huge=always") || list.contains("huge=within_size"));
+	}
+
+	/**
+	 * /proc/mounts escapes spaces and the like as octal, e.g. \040
+	 */
+	private static String unescape(String field) {
+		StringBuilder unescaped = new StringBuilder();
+		for (int i = 0; i < field.length(); i++) {
+			char c = field.charAt(i);
+			if (c == '\\' && i + 3 < field.length() && field.substring(i + 1, i + 4).matches("[0-7]{3}")) {
+				unescaped.append((char) Integer.parseInt(field.substring(i + 1, i + 4), 8));
+				i += 3;
+			}
+			else {
+				unescaped.append(c);
+			}
+		}
+		return unescaped.toString();
+	}
+
+}
@@ -0,0 +1,359 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.layout;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.reific.binarysearch.biased.BiasedBinarySearch;
+
+/**
+ * A sorted int array kept off the heap, in a file in one of three layouts, that is mapped read-only. The file is
+ * written once (see {@link #write(File, int[], Layout)}) and opened with no deserialization, and every process that
+ * opens it shares the same pages of the page cache. Searches have the same contracts as those of the heap layouts,
+ * and give positions in sorted order.
+ * <p>
+ * The file is a header followed, from byte {@link #DATA_OFFSET} (2MB, the size of a huge page on x86), by the layout
+ * as little-endian ints, padded to a whole number of huge pages. On a file system that backs files with huge pages
+ * (see {@link HugePages}), the whole layout is then covered by huge pages, and searches of a large index take far fewer
+ * TLB misses. The Eytzinger and B-tree layouts store their top levels first, so those share the first huge page. A
+ * mapping is limited to 2GB, so the layout is mapped in chunks of 1GB.
+ * <p>
+ * A mapping is only released when the instance is garbage collected. Instances are immutable and may be shared
+ * between threads. The file must not be modified while it is mapped.
+ */
+public final class MappedIntArray {
+
+	public enum Layout {
+		/** The sorted array itself, searched by a biased binary search */
+		SORTED,
+		/** As {@link EytzingerIntArray} */
+		EYTZINGER,
+		/** As {@link StaticBTreeIntArray} */
+		BTREE
+	}
+
+	// "CFIA"
+	private static final int MAGIC = 0x43464941;
+	private static final int VERSION = 1;
+
+	// The layout starts here, aligned for huge pages. The header is much smaller, and the rest of it is a hole.
+	static final long DATA_OFFSET = HugePages.HUGE_PAGE_SIZE;
+
+	// ints per mapping: 1GB
+	private static final int CHUNK_SHIFT = 28;
+
+	private final Layout layout;
+	private final int size;
+	// Length of the layout in ints
+	private final int length;
+	// BTREE only: as StaticBTreeIntArray.offsets
+	private final int[] offsets;
+	// EYTZINGER only: as EytzingerIntArray.height
+	private final int height;
+
+	private final IntBuffer[] chunks;
+	private final int chunkShift;
+	private final int chunkMask;
+
+	/**
+	 * Write the whole of sorted to file in the given layout, replacing the file atomically.
+	 */
+	public static void write(File file, int[] sorted, Layout layout) throws IOException {
+		write(file, sorted, 0, sorted.length, layout);
+	}
+
+	/**
+	 * Write the (sorted) range [fromIndex, toIndex) of the given array to file in the given layout, replacing the
+	 * file atomically. Positions returned by searches of the file are relative to fromIndex.
+	 */
+	public static void write(File file, int[] sorted, int fromIndex, int toIndex, Layout layout) throws IOException {
+		int[] data;
+		int dataFrom;
+		int[] offsets = new int[0];
+		switch (layout) {
+		case SORTED:
+			rangeCheck(sorted.length, fromIndex, toIndex);
+			data = sorted;
+			dataFrom = fromIndex;
+			break;
+		case EYTZINGER:
+			data = new EytzingerIntArray(sorted, fromIndex, toIndex).layout();
+			dataFrom = 0;
+			break;
+		case BTREE:
+			StaticBTreeIntArray tree = new StaticBTreeIntArray(sorted, fromIndex, toIndex);
+			data = tree.tree();
+			dataFrom = 0;
+			offsets = tree.offsets();
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown layout " + layout);
+		}
+		int length = layout == Layout.SORTED ? toIndex - fromIndex : data.length;
+
+		// Written through mappings rather than write(), which hugetlbfs does not support, and a whole number of huge
+		// pages long, which hugetlbfs requires
+		File temporary = new File(file.getPath() + ".tmp");
+		try (RandomAccessFile out = new RandomAccessFile(temporary, "rw")) {
+			out.setLength(0);
+			out.setLength(fileLength(length));
+			FileChannel channel = out.getChannel();
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, DATA_OFFSET);
+			header.order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(layout.ordinal()).putInt(toIndex - fromIndex).putInt(length);
+			header.putInt(offsets.length);
+			for (int offset : offsets) {
+				header.putInt(offset);
+			}
+			header.force();
+
+			for (long first = 0; first < length; first += 1 << CHUNK_SHIFT) {
+				int ints = (int) Math.min(1 << CHUNK_SHIFT, length - first);
+				MappedByteBuffer chunk = map(channel, FileChannel.MapMode.READ_WRITE, first, CHUNK_SHIFT);
+				chunk.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().put(data, (int) (dataFrom + first), ints);
+				chunk.force();
+			}
+		}
+		Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Map the chunk of the layout starting at int first, up to 1 << chunkShift ints. hugetlbfs can only unmap whole
+	 * huge pages, so the last chunk runs to the end of the (padded) file rather than the end of the layout, and
+	 * (except in tests) the others are whole huge pages too.
+	 */
+	private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long first, int chunkShift)
+			throws IOException {
+		long position = DATA_OFFSET + 4 * first;
+		return channel.map(mode, position, Math.min(4L << chunkShift, channel.size() - position));
+	}
+
+	/**
+	 * @return the length of a file holding a layout of the given number of ints
+	 */
+	private static long fileLength(int length) {
+		long pages = (DATA_OFFSET + 4L * length + HugePages.HUGE_PAGE_SIZE - 1) / HugePages.HUGE_PAGE_SIZE;
+		return pages * HugePages.HUGE_PAGE_SIZE;
+	}
+
+	/**
+	 * Map a file written by {@link #write(File, int[], Layout)}.
+	 */
+	public static MappedIntArray open(File file) throws IOException {
+		return new MappedIntArray(file, CHUNK_SHIFT);
+	}
+
+	// chunkShift may be made smaller for testing
+	MappedIntArray(File file, int chunkShift) throws IOException {
+		try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+			FileChannel channel = in.getChannel();
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), DATA_OFFSET))
+					.order(ByteOrder.LITTLE_ENDIAN);
+			if (header.remaining() < 24 || header.getInt(0) != MAGIC) {
+				throw new IOException(file + " is not a mapped int array");
+			}
+			if (header.getInt(4) != VERSION) {
+				throw new IOException(file + " has version " + header.getInt(4) + ", expected " + VERSION);
+			}
+			int ordinal = header.getInt(8);
+			if (ordinal < 0 || ordinal >= Layout.values().length) {
+				throw new IOException(file + " has unknown layout " + ordinal);
+			}
+			this.layout = Layout.values()[ordinal];
+			this.size = header.getInt(12);
+			this.length = header.getInt(16);
+			int layers = header.getInt(20);
+			if (size < 0 || length < 0 || layers < 0 || 24 + 4 * layers > header.remaining()
+					|| channel.size() != fileLength(length)) {
+				throw new IOException(file + " is truncated or corrupt");
+			}
+			this.offsets = new int[layers];
+			for (int l = 0; l < layers; l++) {
+				offsets[l] = header.getInt(24 + 4 * l);
+			}
+			this.height = EytzingerIntArray.height(size);
+
+			this.chunkShift = chunkShift;
+			this.chunkMask = (1 << chunkShift) - 1;
+			this.chunks = new IntBuffer[Math.max(1, (int) ((length + (long) chunkMask) >>> chunkShift))];
+			for (int c = 0; c < chunks.length; c++) {
+				// The mappings outlive the channel
+				chunks[c] = map(channel, FileChannel.MapMode.READ_ONLY, (long) c << chunkShift, chunkShift)
+						.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			}
+		}
+	}
+
+	public Layout layout() {
+		return layout;
+	}
+
+	/**
+	 * @return the number of elements
+	 */
+	public int size() {
+		return size;
+	}
+
+	private int get(int i) {
+		return chunks[i >>> chunkShift].get(i & chunkMask);
+	}
+
+	/**
+	 * Searches for the specified value, with the same contract as Arrays.binarySearch (over the original sorted array).
+	 */
+	public int search(int key) {
+		switch (layout) {
+		case SORTED:
+			return searchSorted(key);
+		case EYTZINGER: {
+			int k = lowerBoundNode(key);
+			if (k != 0 && get(k) == key) {
+				return EytzingerIntArray.positionOfNode(k, height, size);
+			}
+			return -(positionOf(k) + 1);
+		}
+		default: {
+			int position = lowerBoundBTree(key);
+			if (position < size && get(offsets[0] + position) == key) {
+				return position;
+			}
+			return -(position + 1);
+		}
+		}
+	}
+
+	/**
+	 * @return the position of the first element that is greater than or equal to key, or size() if there is none
+	 */
+	public int lowerBound(int key) {
+		switch (layout) {
+		case SORTED:
+			return lowerBoundSorted(key);
+		case EYTZINGER:
+			return positionOf(lowerBoundNode(key));
+		default:
+			return lowerBoundBTree(key);
+		}
+	}
+
+	/**
+	 * @return the number of elements strictly less than key
+	 */
+	public int rank(int key) {
+		return lowerBound(key);
+	}
+
+	// As BiasedBinarySearch
+	private int searchSorted(int key) {
+		if (size == 0) {
+			return -1;
+		}
+		int low = 0;
+		int high = size - 1;
+
+		int mid = BiasedBinarySearch.firstProbe32(0, size);
+
+		while (low <= high) {
+			int midVal = get(mid);
+
+			if (midVal < key)
+				low = mid + 1;
+			else if (midVal > key)
+				high = mid - 1;
+			else
+				return mid; // key found
+			mid = (low + high) >>> 1;
+		}
+		return -(low + 1); // key not found.
+	}
+
+	private int lowerBoundSorted(int key) {
+		int low = 0;
+		int high = size;
+		if (size > 0) {
+			int mid = BiasedBinarySearch.firstProbe32(0, size);
+			while (low < high) {
+				if (get(mid) < key)
+					low = mid + 1;
+				else
+					high = mid;
+				mid = (low + high) >>> 1;
+			}
+		}
+		return low;
+	}
+
+	// As EytzingerIntArray, without the prefetching
+	private int lowerBoundNode(int key) {
+		int k = 1;
+		while (k <= size) {
+			k = 2 * k + (get(k) < key ? 1 : 0);
+		}
+		k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+		return k;
+	}
+
+	private int positionOf(int k) {
+		return k == 0 ? size : EytzingerIntArray.positionOfNode(k, height, size);
+	}
+
+	// As StaticBTreeIntArray
+	private int lowerBoundBTree(int key) {
+		int[] offsets = this.offsets;
+		int block = 0;
+		for (int l = offsets.length - 1; l > 0; l--) {
+			block = block * (StaticBTreeIntArray.B + 1) + rankInNode(offsets[l] + block * StaticBTreeIntArray.B, key);
+		}
+		return Math.min(block * StaticBTreeIntArray.B + rankInNode(offsets[0] + block * StaticBTreeIntArray.B, key),
+				size);
+	}
+
+	private int rankInNode(int offset, int key) {
+		int i = get(offset + 7) < key ? 8 : 0;
+		i += get(offset + i + 3) < key ? 4 : 0;
+		i += get(offset + i + 1) < key ? 2 : 0;
+		i += get(offset + i) < key ? 1 : 0;
+		i += get(offset + i) < key ? 1 : 0;
+		return i;
+	}
+
+	// Copied from Arrays.binarySearch
+	private static void rangeCheck(int arrayLength, int fromIndex, int toIndex) {
+		if (fromIndex > toIndex) {
+			throw new IllegalArgumentException(
+					"fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+		}
+		if (fromIndex < 0) {
+			throw new ArrayIndexOutOfBoundsException(fromIndex);
+		}
+		if (toIndex > arrayLength) {
+			throw new ArrayIndexOutOfBoundsException(toIndex);
+		}
+	}
+
+}
@@ -0,0 +1,234 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.layout;
+
+/**
+ * A sorted long array laid out as a static (read-only) B+ tree with 8 keys per node, so that each node occupies 64
+ * bytes, the size of a cache line on most current hardware. A search visits one node per level, about log9(n) nodes,
+ * instead of the log2(n) cache lines touched by a binary search of a large array.
+ * <p>
+ * The leaves are the sorted array itself (padded with Long.MAX_VALUE to a whole number of nodes), so a position in
+ * the leaf layer is a position in sorted order. Each internal node has 9 children, and its key i is the smallest key
+ * in the subtree of child i + 1. The layers are stored root first in a single array, so the top of the tree is compact.
+ * <p>
+ * Java gives no control over array alignment, so a node will usually span two cache lines rather than one. Within a
+ * node the search is branch-free: three halving steps and a final correction, all within the same node.
+ * <p>
+ * The long counterpart of {@link StaticBTreeIntArray}.
+ * <p>
+ * Instances are immutable and may be shared between threads.
+ */
+public final class StaticBTreeLongArray {
+
+	// Keys per node
+	static final int B = 8;
+
+	// Number of searches advanced in lock-step by the batched search
+	private static final int GROUP_SIZE = 8;
+
+	private final long[] tree;
+	private final int size;
+	// offsets[l] is the start of layer l in tree, with the leaves at layer 0 and the root at layer offsets.length - 1
+	private final int[] offsets;
+
+	public StaticBTreeLongArray(long[] sorted) {
+		this(sorted, 0, sorted.length);
+	}
+
+	/**
+	 * Build the tree from the (sorted) range [fromIndex, toIndex) of the given array. Positions returned by searches
+	 * are relative to fromIndex.
+	 */
+	public StaticBTreeLongArray(long[] sorted, int fromIndex, int toIndex) {
+		rangeCheck(sorted.length, fromIndex, toIndex);
+		this.size = toIndex - fromIndex;
+
+		int layers = 1;
+		for (int blocks = blocks(size, B); blocks > 1; blocks = blocks(blocks, B + 1)) {
+			layers++;
+		}
+		int[] layerBlocks = new int[layers];
+		layerBlocks[0] = Math.max(1, blocks(size, B));
+		for (int l = 1; l < layers; l++) {
+			layerBlocks[l] = blocks(layerBlocks[l - 1], B + 1);
+		}
+
+		this.offsets = new int[layers];
+		long total = 0;
+		for (int l = layers - 1; l >= 0; l--) {
+			offsets[l] = (int) total;
+			total += (long) layerBlocks[l] * B;
+		}
+		if (total > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("size(" + size + ") too large");
+		}
+		this.tree = new long[(int) total];
+
+		// The leaves
+		System.arraycopy(sorted, fromIndex, tree, offsets[0], size);
+		for (int i = offsets[0] + size; i < tree.length; i++) {
+			tree[i] = Long.MAX_VALUE;
+		}
+
+		// The internal layers. The leftmost leaf below block c of layer l is block c * 9^l of the leaves.
+		long leavesPerChild = 1;
+		for (int l = 1; l < layers; l++) {
+			for (int block = 0; block < layerBlocks[l]; block++) {
+				for (int i = 0; i < B; i++) {
+					long child = (long) block * (B + 1) + i + 1;
+					long leaf = child * leavesPerChild * B;
+					tree[offsets[l] + block * B + i] = child < layerBlocks[l - 1] && leaf < size
+							? tree[(int) (offsets[0] + leaf)]
+							: Long.MAX_VALUE;
+				}
+			}
+			leavesPerChild *= B + 1;
+		}
+	}
+
+	private static int blocks(int n, int blockSize) {
+		return (n + blockSize - 1) / blockSize;
+	}
+
+	/**
+	 * @return the tree itself (not a copy)
+	 */
+	long[] tree() {
+		return tree;
+	}
+
+	/**
+	 * @return the start of each layer in the tree, leaves first (not a copy)
+	 */
+	int[] offsets() {
+		return offsets;
+	}
+
+	/**
+	 * @return the number of elements
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the element at the given position in sorted order
+	 */
+	public long get(int index) {
+		if (index < 0 || index >= size) {
+			throw new ArrayIndexOutOfBoundsException(index);
+		}
+		return tree[offsets[0] + index];
+	}
+
+	/**
+	 * Searches for the specified value, with the same contract as Arrays.binarySearch (over the original sorted array).
+	 */
+	public int search(long key) {
+		int position = lowerBound(key);
+		if (position < size && tree[offsets[0] + position] == key) {
+			return position;
+		}
+		return -(position + 1);
+	}
+
+	/**
+	 * Searches for each of keys, storing the result for keys[i] (as defined by {@link #search(long)}) in results[i].
+	 * <p>
+	 * The keys are searched in groups, advancing every search of a group by one node before any of them takes the
+	 * next. The loads within a round are independent of each other, so their cache misses overlap instead of forming
+	 * one long chain of dependent misses per key.
+	 */
+	public void search(long[] keys, int[] results) {
+		if (results.length < keys.length) {
+			throw new IllegalArgumentException(
+					"results.length(" + results.length + ") < keys.length(" + keys.length + ")");
+		}
+		long[] tree = this.tree;
+		int[] offsets = this.offsets;
+		int[] blocks = new int[GROUP_SIZE];
+		for (int group = 0; group < keys.length; group += GROUP_SIZE) {
+			int lanes = Math.min(GROUP_SIZE, keys.length - group);
+			for (int lane = 0; lane < lanes; lane++) {
+				blocks[lane] = 0;
+			}
+			// Every search has the same depth, so the group stays in step without any per-lane bookkeeping
+			for (int l = offsets.length - 1; l > 0; l--) {
+				for (int lane = 0; lane < lanes; lane++) {
+					int block = blocks[lane];
+					blocks[lane] = block * (B + 1) + rankInNode(tree, offsets[l] + block * B, keys[group + lane]);
+				}
+			}
+			for (int lane = 0; lane < lanes; lane++) {
+				long key = keys[group + lane];
+				int block = blocks[lane];
+				int position = Math.min(block * B + rankInNode(tree, offsets[0] + block * B, key), size);
+				results[group + lane] = position < size && tree[offsets[0] + position] == key
+						? position
+						: -(position + 1);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of elements strictly less than key
+	 */
+	public int rank(long key) {
+		return lowerBound(key);
+	}
+
+	/**
+	 * @return the position of the first element that is greater than or equal to key, or size() if there is none
+	 */
+	public int lowerBound(long key) {
+		long[] tree = this.tree;
+		int[] offsets = this.offsets;
+		int block = 0;
+		for (int l = offsets.length - 1; l > 0; l--) {
+			block = block * (B + 1) + rankInNode(tree, offsets[l] + block * B, key);
+		}
+		// A rank of B in a leaf means every key in it is smaller, and the answer is the first key of the next leaf
+		return Math.min(block * B + rankInNode(tree, offsets[0] + block * B, key), size);
+	}
+
+	/**
+	 * @return the number of keys less than key in the (sorted) node starting at offset
+	 */
+	private static int rankInNode(long[] tree, int offset, long key) {
+		int i = tree[offset + 3] < key ? 4 : 0;
+		i += tree[offset + i + 1] < key ? 2 : 0;
+		i += tree[offset + i] < key ? 1 : 0;
+		// i is now min(rank, 7), so one more step covers a rank of 8
+		i += tree[offset + i] < key ? 1 : 0;
+		return i;
+	}
+
+	// Copied from Arrays.binarySearch
+	private static void rangeCheck(int arrayLength, int fromIndex, int toIndex) {
+		if (fromIndex > toIndex) {
+			throw new IllegalArgumentException(
+					"fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+		}
+		if (fromIndex < 0) {
+			throw new ArrayIndexOutOfBoundsException(fromIndex);
+		}
+		if (toIndex > arrayLength) {
+			throw new ArrayIndexOutOfBoundsException(toIndex);
+		}
+	}
+
+}
@@ -0,0 +1,90 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.learned;
+
+import org.reific.binarysearch.LastLevelSearch;
+import org.reific.binarysearch.biased.BiasedBinarySearch;
+
+/**
+ * Interpolation search: each probe is placed where the key would be if the values between the ends of the range were
+ * evenly spread. On evenly spread keys the first probe lands within a few elements of the key, and a search takes
+ * O(log log n) probes rather than O(log n).
+ * <p>
+ * On skewed keys interpolation can take O(n) probes, so after {@link #MAX_INTERPOLATIONS} of them a search that has
+ * not narrowed the range to {@link LastLevelSearch#WINDOW} elements finishes with BiasedBinarySearch instead.
+ */
+public class InterpolationSearch {
+
+	static final int MAX_INTERPOLATIONS = 3;
+
+	/**
+	 * Searches a (which must be sorted) for key, with the same contract as Arrays.binarySearch
+	 */
+	public static int binarySearch(int[] a, int key) {
+		return binarySearch0(a, 0, a.length, key);
+	}
+
+	public static int binarySearch(int[] a, int fromIndex, int toIndex, int key) {
+		rangeCheck(a.length, fromIndex, toIndex);
+		return binarySearch0(a, fromIndex, toIndex, key);
+	}
+
+	private static int binarySearch0(int[] a, int fromIndex, int toIndex, int key) {
+		int low = fromIndex;
+		int high = toIndex - 1;
+
+		for (int i = 0; i < MAX_INTERPOLATIONS && high - low >= LastLevelSearch.WINDOW; i++) {
+			int lowVal = a[low];
+			int highVal = a[high];
+			if (key <= lowVal) {
+				return key == lowVal ? low : -(low + 1);
+			}
+			if (key >= highVal) {
+				return key == highVal ? high : -(high + 2);
+			}
+			// lowVal < key < highVal, so the probe is strictly inside the range
+			int probe = low + (int) ((double) ((long) key - lowVal) / ((long) highVal - lowVal) * (high - low));
+			int probeVal = a[probe];
+
+			if (probeVal < key)
+				low = probe + 1;
+			else if (probeVal > key)
+				high = probe - 1;
+			else
+				return probe; // key found
+		}
+		if (high - low < LastLevelSearch.WINDOW) {
+			return LastLevelSearch.binarySearch(a, low, high + 1, key);
+		}
+		return BiasedBinarySearch.binarySearch(a, low, high + 1, key);
+	}
+
+	// Copied from Arrays.binarySearch
+	private static void rangeCheck(int arrayLength, int fromIndex, int toIndex) {
+		if (fromIndex > toIndex) {
+			throw new IllegalArgumentException(
+					"fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+		}
+		if (fromIndex < 0) {
+			throw new ArrayIndexOutOfBoundsException(fromIndex);
+		}
+		if (toIndex > arrayLength) {
+			throw new ArrayIndexOutOfBoundsException(toIndex);
+		}
+	}
+
+}
@@ -0,0 +1,189 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.learned;
+
+import org.reific.binarysearch.LastLevelSearch;
+import org.reific.binarysearch.biased.BiasedBinarySearch;
+
+/**
+ * A learned index (a two stage recursive model index) over a sorted int array. The first stage is a linear function
+ * of the key that picks one of the second stage models; each of those is a line fitted to the keys it covers, with
+ * the smallest and largest error of its predictions over those keys. A search predicts the position of the key, and
+ * binary searches only the window the error bounds allow. For keys that are close to evenly spread the windows are a
+ * few elements wide, so a search costs about one cache miss for the model and one for the window.
+ * <p>
+ * A key that is not in the array can still fall outside the window of its model, so a result at the edge of the
+ * window is checked against its neighbour, and if that shows the key lies beyond the window, the rest of the range is
+ * searched with BiasedBinarySearch. Building the index is a single O(n) pass.
+ * <p>
+ * An index is immutable once constructed and may be shared freely between threads. The haystack is not copied, and
+ * must not be modified while the index is in use.
+ */
+public final class LearnedIntIndex {
+
+	// The default number of elements per second stage model
+	static final int ELEMENTS_PER_MODEL = 128;
+
+	// The second stage models, MODEL_STRIDE doubles (32 bytes) each. The elements of a double[] start 16 bytes into
+	// the array object on 64 bit HotSpot, so the models start MODEL_OFFSET elements in: every model then starts a
+	// multiple of 32 bytes from the start of the object, and lies within one cache line whenever the object is 32 byte
+	// aligned. HotSpot only promises 8 byte alignment, unless run with -XX:ObjectAlignmentInBytes=32 (or more).
+	private static final int MODEL_STRIDE = 4;
+	private static final int MODEL_OFFSET = 2;
+	private static final int SLOPE = 0;
+	private static final int INTERCEPT = 1;
+	private static final int MIN_ERROR = 2;
+	private static final int MAX_ERROR = 3;
+
+	private final int[] haystack;
+	private final int fromIndex;
+	private final int toIndex;
+	private final int numberOfModels;
+	// The first stage: model = (key - firstKey) * scale
+	private final long firstKey;
+	private final double scale;
+	private final double[] models;
+
+	public LearnedIntIndex(int[] haystack) {
+		this(haystack, 0, haystack.length);
+	}
+
+	public LearnedIntIndex(int[] haystack, int fromIndex, int toIndex) {
+		this(haystack, fromIndex, toIndex, Math.max(1, (toIndex - fromIndex) / ELEMENTS_PER_MODEL));
+	}
+
+	/**
+	 * Index the (sorted) range [fromIndex, toIndex) of haystack with the given number of second stage models. More
+	 * models give narrower windows, for 32 bytes each.
+	 */
+	public LearnedIntIndex(int[] haystack, int fromIndex, int toIndex, int numberOfModels) {
+		rangeCheck(haystack.length, fromIndex, toIndex);
+		if (numberOfModels < 1) {
+			throw new IllegalArgumentException("numberOfModels(" + numberOfModels + ") < 1");
+		}
+		this.haystack = haystack;
+		this.fromIndex = fromIndex;
+		this.toIndex = toIndex;
+		this.numberOfModels = numberOfModels;
+		this.models = new double[MODEL_OFFSET + numberOfModels * MODEL_STRIDE];
+		if (fromIndex == toIndex) {
+			this.firstKey = 0;
+			this.scale = 0;
+			return;
+		}
+		this.firstKey = haystack[fromIndex];
+		this.scale = numberOfModels / ((double) haystack[toIndex - 1] - firstKey + 1);
+		train();
+	}
+
+	/**
+	 * Fit each model to the run of keys the first stage sends to it (runs, because the first stage is monotonic), as
+	 * the line through the first and last of them, then measure its errors.
+	 */
+	private void train() {
+		int start = fromIndex;
+		for (int model = 0; model < numberOfModels; model++) {
+			int end = start;
+			while (end < toIndex && modelFor(haystack[end]) == model) {
+				end++;
+			}
+			int m = MODEL_OFFSET + model * MODEL_STRIDE;
+			if (end == start) {
+				// No keys: any key sent here belongs just before the next run
+				models[m + INTERCEPT] = start;
+				continue;
+			}
+			long firstKey = haystack[start];
+			long lastKey = haystack[end - 1];
+			double slope = lastKey == firstKey ? 0 : (double) (end - 1 - start) / (lastKey - firstKey);
+			models[m + SLOPE] = slope;
+			models[m + INTERCEPT] = start - slope * firstKey;
+			int minError = 0;
+			int maxError = 0;
+			for (int i = start; i < end; i++) {
+				int error = i - predict(m, haystack[i]);
+				minError = Math.min(minError, error);
+				maxError = Math.max(maxError, error);
+			}
+			models[m + MIN_ERROR] = minError;
+			models[m + MAX_ERROR] = maxError;
+			start = end;
+		}
+	}
+
+	private int modelFor(int key) {
+		double model = (key - firstKey) * scale;
+		return (int) Math.max(0, Math.min(numberOfModels - 1, model));
+	}
+
+	private int predict(int m, int key) {
+		double position = models[m + SLOPE] * key + models[m + INTERCEPT];
+		return (int) Math.max(fromIndex, Math.min(toIndex - 1, position));
+	}
+
+	/**
+	 * Searches the indexed range for the specified value, with the same contract as Arrays.binarySearch
+	 */
+	public int search(int key) {
+		if (fromIndex == toIndex) {
+			return -(fromIndex + 1);
+		}
+		int m = MODEL_OFFSET + modelFor(key) * MODEL_STRIDE;
+		int predicted = predict(m, key);
+		int low = Math.max(fromIndex, predicted + (int) models[m + MIN_ERROR]);
+		int high = Math.min(toIndex, predicted + (int) models[m + MAX_ERROR] + 1);
+
+		int result = LastLevelSearch.binarySearch(haystack, low, high, key);
+		if (result >= 0) {
+			return result;
+		}
+		int insertionPoint = -(result + 1);
+		if (insertionPoint == low && low > fromIndex && haystack[low - 1] >= key) {
+			return BiasedBinarySearch.binarySearch(haystack, fromIndex, low, key);
+		}
+		if (insertionPoint == high && high < toIndex && haystack[high] <= key) {
+			return BiasedBinarySearch.binarySearch(haystack, high, toIndex, key);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the widest window of any model, a measure of how well the keys fit the model
+	 */
+	public int maxWindow() {
+		int widest = 0;
+		for (int m = MODEL_OFFSET; m < models.length; m += MODEL_STRIDE) {
+			widest = Math.max(widest, (int) (models[m + MAX_ERROR] - models[m + MIN_ERROR]) + 1);
+		}
+		return widest;
+	}
+
+	// Copied from Arrays.binarySearch
+	private static void rangeCheck(int arrayLength, int fromIndex, int toIndex) {
+		if (fromIndex > toIndex) {
+			throw new IllegalArgumentException(
+					"fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+		}
+		if (fromIndex < 0) {
+			throw new ArrayIndexOutOfBoundsException(fromIndex);
+		}
+		if (toIndex > arrayLength) {
+			throw new ArrayIndexOutOfBoundsException(toIndex);
+		}
+	}
+
+}
@@ -0,0 +1,321 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.collection;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.reific.binarysearch.biased.BiasedBinarySearch;
+import org.reific.binarysearch.biased.BiasedRangeSearch;
+
+/**
+ * A sorted set of ints for read-heavy workloads with a trickle of updates: a large immutable {@link IntSortedSet}
+ * (the base), plus a small sorted buffer of keys added since the base was built and a sorted buffer of tombstones
+ * for keys removed from it. A merge folds the buffers into a new base, and may run in the background while reads and
+ * writes continue.
+ * <p>
+ * The base and buffers are published together as one immutable snapshot through a volatile field, so reads take no
+ * lock and allocate nothing: a read sees one consistent snapshot, searching the base and each buffer once. Writes
+ * copy the buffer they change (they are expected to be small, a few thousand keys) and are serialized with each other.
+ * A merge builds the new base from the snapshot it started with, without blocking writes, then re-derives the buffers
+ * against the new base from whatever snapshot is current when it swaps it in, so writes made during the merge are not
+ * lost.
+ */
+public final class BufferedIntSortedSet {
+
+	private static final int[] EMPTY = new int[0];
+
+	private static final class Snapshot {
+		final IntSortedSet base;
+		// Keys not in base, sorted
+		final int[] inserts;
+		// Keys in base that have been removed, sorted
+		final int[] deletes;
+
+		Snapshot(IntSortedSet base, int[] inserts, int[] deletes) {
+			this.base = base;
+			this.inserts = inserts;
+			this.deletes = deletes;
+		}
+
+		boolean contains(int key) {
+			if (BiasedBinarySearch.binarySearch(inserts, key) >= 0) {
+				return true;
+			}
+			return base.contains(key) && BiasedBinarySearch.binarySearch(deletes, key) < 0;
+		}
+	}
+
+	private volatile Snapshot snapshot;
+
+	// For merges in the background, when the buffers reach mergeThreshold keys
+	private final Executor executor;
+	private final int mergeThreshold;
+	private final AtomicBoolean mergeScheduled = new AtomicBoolean();
+	// Serializes merges, without blocking writes
+	private final Object mergeLock = new Object();
+
+	/**
+	 * Creates a set of the given values (in any order, with duplicates allowed), which is only merged by
+	 * {@link #merge()}.
+	 */
+	public BufferedIntSortedSet(int... values) {
+		this(values, null, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Creates a set of the given values (in any order, with duplicates allowed), which merges on the given executor
+	 * whenever its buffers hold mergeThreshold or more keys. If the executor rejects a merge, the write that triggered
+	 * it still succeeds, and the next write tries again.
+	 */
+	public BufferedIntSortedSet(int[] values, Executor executor, int mergeThreshold) {
+		if (mergeThreshold < 1) {
+			throw new IllegalArgumentException("mergeThreshold(" + mergeThreshold + ") < 1");
+		}
+		this.snapshot = new Snapshot(new IntSortedSet(values), EMPTY, EMPTY);
+		this.executor = executor;
+		this.mergeThreshold = mergeThreshold;
+	}
+
+	public int size() {
+		Snapshot s = snapshot;
+		return s.base.size() + s.inserts.length - s.deletes.length;
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	public boolean contains(int key) {
+		return snapshot.contains(key);
+	}
+
+	/**
+	 * @return the number of keys less than key
+	 */
+	public int rank(int key) {
+		Snapshot s = snapshot;
+		return s.base.rank(key) + BiasedRangeSearch.lowerBound(s.inserts, key)
+				- BiasedRangeSearch.lowerBound(s.deletes, key);
+	}
+
+	/**
+	 * @return the number of keys in [low, high]
+	 */
+	public int countInRange(int low, int high) {
+		Snapshot s = snapshot;
+		return s.base.countInRange(low, high) + BiasedRangeSearch.countInRange(s.inserts, low, high)
+				- BiasedRangeSearch.countInRange(s.deletes, low, high);
+	}
+
+	/**
+	 * @return the number of keys buffered since the last merge, inserts and tombstones
+	 */
+	public int bufferedKeys() {
+		Snapshot s = snapshot;
+		return s.inserts.length + s.deletes.length;
+	}
+
+	/**
+	 * Adds key, if it is not already present
+	 * 
+	 * @return whether the key was added
+	 */
+	public boolean add(int key) {
+		synchronized (this) {
+			Snapshot s = snapshot;
+			int delete = BiasedBinarySearch.binarySearch(s.deletes, key);
+			if (delete >= 0) {
+				snapshot = new Snapshot(s.base, s.inserts, without(s.deletes, delete));
+				return true;
+			}
+			if (s.base.contains(key)) {
+				return false;
+			}
+			int insert = BiasedBinarySearch.binarySearch(s.inserts, key);
+			if (insert >= 0) {
+				return false;
+			}
+			snapshot = new Snapshot(s.base, with(s.inserts, -(insert + 1), key), s.deletes);
+		}
+		scheduleMerge();
+		return true;
+	}
+
+	/**
+	 * Removes key, if it is present
+	 * 
+	 * @return whether the key was removed
+	 */
+	public boolean remove(int key) {
+		synchronized (this) {
+			Snapshot s = snapshot;
+			int insert = BiasedBinarySearch.binarySearch(s.inserts, key);
+			if (insert >= 0) {
+				snapshot = new Snapshot(s.base, without(s.inserts, insert), s.deletes);
+				return true;
+			}
+			if (!s.base.contains(key)) {
+				return false;
+			}
+			int delete = BiasedBinarySearch.binarySearch(s.deletes, key);
+			if (delete >= 0) {
+				return false;
+			}
+			snapshot = new Snapshot(s.base, s.inserts, with(s.deletes, -(delete + 1), key));
+		}
+		scheduleMerge();
+		return true;
+	}
+
+	private void scheduleMerge() {
+		if (executor != null && bufferedKeys() >= mergeThreshold && mergeScheduled.compareAndSet(false, true)) {
+			try {
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							merge();
+						} finally {
+							mergeScheduled.set(false);
+						}
+						// Writes made during the merge could not schedule another, so check for them now
+						scheduleMerge();
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				// The write has already taken effect, so it must not fail: let a later write try again
+				mergeScheduled.set(false);
+			}
+		}
+	}
+
+	/**
+	 * Folds the buffers into a new base. Reads and writes continue while the base is built; this call blocks only
+	 * other merges. Runs on the calling thread, so call it from a background thread (or construct the set with an
+	 * executor to have it merge itself).
+	 */
+	public void merge() {
+		synchronized (mergeLock) {
+			Snapshot start = snapshot;
+			if (start.inserts.length == 0 && start.deletes.length == 0) {
+				return;
+			}
+			// Already sorted and unique, so the new base need not copy or sort it
+			IntSortedSet base = IntSortedSet.ofSortedUnique(toArray(start), IntSortedSet.MAX_ARRAY_SIZE);
+
+			synchronized (this) {
+				// Only keys buffered in either snapshot can differ between the current contents and the new base
+				Snapshot current = snapshot;
+				int[] candidates = union(union(start.inserts, start.deletes), union(current.inserts, current.deletes));
+				int[] inserts = new int[candidates.length];
+				int[] deletes = new int[candidates.length];
+				int numberOfInserts = 0;
+				int numberOfDeletes = 0;
+				for (int key : candidates) {
+					boolean present = current.contains(key);
+					if (present != base.contains(key)) {
+						if (present) {
+							inserts[numberOfInserts++] = key;
+						}
+						else {
+							deletes[numberOfDeletes++] = key;
+						}
+					}
+				}
+				snapshot = new Snapshot(base, Arrays.copyOf(inserts, numberOfInserts),
+						Arrays.copyOf(deletes, numberOfDeletes));
+			}
+		}
+	}
+
+	/**
+	 * @return the keys in ascending order, in a new array
+	 */
+	public int[] toArray() {
+		return toArray(snapshot);
+	}
+
+	private static int[] toArray(Snapshot s) {
+		int[] result = new int[s.base.size() + s.inserts.length - s.deletes.length];
+		int count = 0;
+		int insert = 0;
+		int delete = 0;
+		for (IntSortedSet.Cursor cursor = s.base.cursor(); cursor.hasNext();) {
+			int key = cursor.next();
+			while (insert < s.inserts.length && s.inserts[insert] < key) {
+				result[count++] = s.inserts[insert++];
+			}
+			if (delete < s.deletes.length && s.deletes[delete] == key) {
+				delete++;
+			}
+			else {
+				result[count++] = key;
+			}
+		}
+		while (insert < s.inserts.length) {
+			result[count++] = s.inserts[insert++];
+		}
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(toArray());
+	}
+
+	private static int[] with(int[] a, int position, int key) {
+		int[] result = new int[a.length + 1];
+		System.arraycopy(a, 0, result, 0, position);
+		result[position] = key;
+		System.arraycopy(a, position, result, position + 1, a.length - position);
+		return result;
+	}
+
+	private static int[] without(int[] a, int position) {
+		int[] result = new int[a.length - 1];
+		System.arraycopy(a, 0, result, 0, position);
+		System.arraycopy(a, position + 1, result, position, result.length - position);
+		return result;
+	}
+
+	/**
+	 * @return the sorted union of two sorted arrays, without duplicates
+	 */
+	private static int[] union(int[] a, int[] b) {
+		int[] result = new int[a.length + b.length];
+		int i = 0;
+		int j = 0;
+		int count = 0;
+		while (i < a.length || j < b.length) {
+			if (j == b.length || (i < a.length && a[i] < b[j])) {
+				result[count++] = a[i++];
+			}
+			else if (i == a.length || b[j] < a[i]) {
+				result[count++] = b[j++];
+			}
+			else {
+				result[count++] = a[i++];
+				j++;
+			}
+		}
+		return Arrays.copyOf(result, count);
+	}
+
+}
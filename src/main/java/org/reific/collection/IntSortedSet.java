@@ -0,0 +1,290 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.collection;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import org.reific.binarysearch.biased.BiasedRangeSearch;
+import org.reific.binarysearch.layout.StaticBTreeIntArray;
+
+/**
+ * An immutable sorted set of ints. Small sets are kept as a sorted array and searched with a biased binary search;
+ * sets too large for that array to stay in the L1 cache are laid out as a {@link StaticBTreeIntArray}, so a search
+ * touches about log17(n) cache lines rather than log2(n). Either way the elements are also held in sorted order, so
+ * select and iteration are sequential reads.
+ * <p>
+ * Positions (as taken by select and returned by rank) are positions in ascending order, from 0 to size() - 1.
+ * <p>
+ * Instances are immutable and may be shared between threads. Cursors may not.
+ */
+public final class IntSortedSet {
+
+	// 16KB of ints, half of a typical L1 data cache
+	static final int MAX_ARRAY_SIZE = 4096;
+
+	// Exactly one of these is set
+	private final int[] elements;
+	private final StaticBTreeIntArray tree;
+	private final int size;
+
+	/**
+	 * Creates a set of the given values, which may be in any order and contain duplicates. The array is not retained.
+	 */
+	public IntSortedSet(int... values) {
+		this(sortedUnique(values), MAX_ARRAY_SIZE);
+	}
+
+	private IntSortedSet(int[] sorted, int maxArraySize) {
+		this.size = sorted.length;
+		if (size <= maxArraySize) {
+			this.elements = sorted;
+			this.tree = null;
+		}
+		else {
+			this.elements = null;
+			this.tree = new StaticBTreeIntArray(sorted);
+		}
+	}
+
+	/**
+	 * Creates a set of the given values, which may be in any order and contain duplicates, kept as a plain array if
+	 * there are at most maxArraySize of them.
+	 */
+	static IntSortedSet of(int[] values, int maxArraySize) {
+		return new IntSortedSet(sortedUnique(values), maxArraySize);
+	}
+
+	/**
+	 * Creates a set of values that are already sorted and unique, such as the contents of another set, without copying
+	 * or sorting them. A small set keeps the array itself, so the caller must not modify it afterwards.
+	 */
+	static IntSortedSet ofSortedUnique(int[] sorted, int maxArraySize) {
+		return new IntSortedSet(sorted, maxArraySize);
+	}
+
+	/**
+	 * @return a sorted copy of values, without duplicates
+	 */
+	private static int[] sortedUnique(int[] values) {
+		int[] sorted = values.clone();
+		Arrays.sort(sorted);
+		int size = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (size == 0 || sorted[i] != sorted[size - 1]) {
+				sorted[size++] = sorted[i];
+			}
+		}
+		return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+	}
+
+	/**
+	 * @return whether the set is laid out as a B+ tree, rather than an array
+	 */
+	boolean isBlocked() {
+		return tree != null;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean contains(int key) {
+		int position = rank(key);
+		return position < size && select(position) == key;
+	}
+
+	/**
+	 * @return the number of elements less than key, which is also the position of key if the set contains it
+	 */
+	public int rank(int key) {
+		return tree != null ? tree.lowerBound(key) : BiasedRangeSearch.lowerBound(elements, key);
+	}
+
+	/**
+	 * @return the element at the given position in ascending order
+	 */
+	public int select(int position) {
+		if (position < 0 || position >= size) {
+			throw new IndexOutOfBoundsException("position(" + position + ") not in [0, " + size + ")");
+		}
+		return tree != null ? tree.get(position) : elements[position];
+	}
+
+	/**
+	 * @return the number of elements less than or equal to key
+	 */
+	private int rankInclusive(int key) {
+		return key == Integer.MAX_VALUE ? size : rank(key + 1);
+	}
+
+	/**
+	 * @return the smallest element
+	 * @throws NoSuchElementException if the set is empty
+	 */
+	public int first() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return select(0);
+	}
+
+	/**
+	 * @return the largest element
+	 * @throws NoSuchElementException if the set is empty
+	 */
+	public int last() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return select(size - 1);
+	}
+
+	/**
+	 * @return the largest element less than or equal to key
+	 * @throws NoSuchElementException if there is none
+	 */
+	public int floor(int key) {
+		int position = rankInclusive(key);
+		if (position == 0) {
+			throw new NoSuchElementException("no element <= " + key);
+		}
+		return select(position - 1);
+	}
+
+	/**
+	 * @return the smallest element greater than or equal to key
+	 * @throws NoSuchElementException if there is none
+	 */
+	public int ceiling(int key) {
+		int position = rank(key);
+		if (position == size) {
+			throw new NoSuchElementException("no element >= " + key);
+		}
+		return select(position);
+	}
+
+	/**
+	 * @return the number of elements in [low, high]
+	 */
+	public int countInRange(int low, int high) {
+		return high < low ? 0 : rankInclusive(high) - rank(low);
+	}
+
+	/**
+	 * @return a cursor over every element. Reposition it with {@link Cursor#range(int, int)} to reuse it.
+	 */
+	public Cursor cursor() {
+		Cursor cursor = new Cursor();
+		cursor.position = 0;
+		cursor.end = size;
+		return cursor;
+	}
+
+	/**
+	 * @return the elements in ascending order, in a new array
+	 */
+	public int[] toArray() {
+		int[] result = new int[size];
+		for (int i = 0; i < size; i++) {
+			result[i] = select(i);
+		}
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof IntSortedSet)) {
+			return false;
+		}
+		IntSortedSet that = (IntSortedSet) other;
+		if (that.size != size) {
+			return false;
+		}
+		for (int i = 0; i < size; i++) {
+			if (select(i) != that.select(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 0;
+		for (int i = 0; i < size; i++) {
+			hash = 31 * hash + select(i);
+		}
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(toArray());
+	}
+
+	/**
+	 * Iterates over the elements of a range of the set in ascending order, without boxing or allocating. A cursor can
+	 * be repositioned any number of times, so one cursor can serve many range queries.
+	 */
+	public final class Cursor {
+
+		private int position;
+		private int end;
+
+		private Cursor() {
+		}
+
+		/**
+		 * Positions the cursor before the first element in [low, high]. The range is empty if high < low.
+		 * 
+		 * @return this cursor
+		 */
+		public Cursor range(int low, int high) {
+			position = rank(low);
+			end = high < low ? position : rankInclusive(high);
+			return this;
+		}
+
+		public boolean hasNext() {
+			return position < end;
+		}
+
+		/**
+		 * @return the next element
+		 * @throws NoSuchElementException if there are no more elements in the range
+		 */
+		public int next() {
+			if (position >= end) {
+				throw new NoSuchElementException();
+			}
+			return select(position++);
+		}
+
+		/**
+		 * @return the number of elements left in the range
+		 */
+		public int remaining() {
+			return end - position;
+		}
+	}
+
+}
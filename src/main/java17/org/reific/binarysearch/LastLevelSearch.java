@@ -0,0 +1,121 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch;
+
+/**
+ * Binary search of a range of a sorted array, with the same contract as Arrays.binarySearch, used by the other
+ * searches in this library to finish once they have narrowed the range down.
+ * <p>
+ * This is the Java 17 version of the class, from the multi-release part of the jar. It halves the range as usual until
+ * it is at most {@link #WINDOW} elements, and then counts the elements less than the key a vector at a time (see
+ * VectorSearch), which needs neither branches nor a chain of dependent loads. The Vector API is an incubator module,
+ * so this only happens when the JVM is started with --add-modules jdk.incubator.vector, and the hardware has vectors
+ * of at least four ints. Otherwise it is a plain binary search, as on older JVMs.
+ */
+public final class LastLevelSearch {
+
+	// The largest range searched by vector comparisons rather than halving: four 64 byte cache lines of ints
+	public static final int WINDOW = 64;
+
+	// VectorSearch may only be loaded when its module is present
+	private static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+			&& VectorSearch.worthwhile();
+
+	private LastLevelSearch() {
+	}
+
+	/**
+	 * @return true if the vector implementation is in use
+	 */
+	public static boolean vectorized() {
+		return VECTORIZED;
+	}
+
+	/**
+	 * Searches [fromIndex, toIndex) of a, which the caller has range checked, as Arrays.binarySearch does.
+	 */
+	public static int binarySearch(int[] a, int fromIndex, int toIndex, int key) {
+		int low = fromIndex;
+		int high = toIndex - 1;
+
+		if (VECTORIZED) {
+			while (high - low >= WINDOW) {
+				int mid = (low + high) >>> 1;
+				int midVal = a[mid];
+
+				if (midVal < key)
+					low = mid + 1;
+				else if (midVal > key)
+					high = mid - 1;
+				else
+					return mid; // key found
+			}
+			return VectorSearch.search(a, low, high + 1, key);
+		}
+
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int midVal = a[mid];
+
+			if (midVal < key)
+				low = mid + 1;
+			else if (midVal > key)
+				high = mid - 1;
+			else
+				return mid; // key found
+		}
+		return -(low + 1); // key not found.
+	}
+
+	/**
+	 * Searches [fromIndex, toIndex) of a, which the caller has range checked, as Arrays.binarySearch does.
+	 */
+	public static int binarySearch(long[] a, int fromIndex, int toIndex, long key) {
+		int low = fromIndex;
+		int high = toIndex - 1;
+
+		if (VECTORIZED) {
+			// The same number of cache lines as for ints
+			while (high - low >= WINDOW / 2) {
+				int mid = (low + high) >>> 1;
+				long midVal = a[mid];
+
+				if (midVal < key)
+					low = mid + 1;
+				else if (midVal > key)
+					high = mid - 1;
+				else
+					return mid; // key found
+			}
+			return VectorSearch.search(a, low, high + 1, key);
+		}
+
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			long midVal = a[mid];
+
+			if (midVal < key)
+				low = mid + 1;
+			else if (midVal > key)
+				high = mid - 1;
+			else
+				return mid; // key found
+		}
+		return -(low + 1); // key not found.
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Searches of a small sorted range with the Vector API. Since the range is sorted, the number of elements less than
+ * the key is its insertion point, and that is the sum of the popcounts of the comparison masks of each vector. Every
+ * vector is compared, with no early exit, so there is no branch to mispredict.
+ * <p>
+ * Only loaded by LastLevelSearch once it has checked that the jdk.incubator.vector module is present.
+ */
+final class VectorSearch {
+
+	private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+	private VectorSearch() {
+	}
+
+	/**
+	 * @return true if the preferred vectors are wide enough to beat halving (e.g. not on hardware without SIMD, where
+	 *         the Vector API falls back to one lane)
+	 */
+	static boolean worthwhile() {
+		return INTS.length() >= 4 && LONGS.length() >= 2;
+	}
+
+	static int search(int[] a, int fromIndex, int toIndex, int key) {
+		int less = 0;
+		int i = fromIndex;
+		for (int bound = fromIndex + INTS.loopBound(toIndex - fromIndex); i < bound; i += INTS.length()) {
+			less += IntVector.fromArray(INTS, a, i).compare(VectorOperators.LT, key).trueCount();
+		}
+		if (i < toIndex) {
+			VectorMask<Integer> inRange = INTS.indexInRange(i, toIndex);
+			less += IntVector.fromArray(INTS, a, i, inRange).compare(VectorOperators.LT, key, inRange).trueCount();
+		}
+		int position = fromIndex + less;
+		return position < toIndex && a[position] == key ? position : -(position + 1);
+	}
+
+	static int search(long[] a, int fromIndex, int toIndex, long key) {
+		int less = 0;
+		int i = fromIndex;
+		for (int bound = fromIndex + LONGS.loopBound(toIndex - fromIndex); i < bound; i += LONGS.length()) {
+			less += LongVector.fromArray(LONGS, a, i).compare(VectorOperators.LT, key).trueCount();
+		}
+		if (i < toIndex) {
+			VectorMask<Long> inRange = LONGS.indexInRange(i, toIndex);
+			less += LongVector.fromArray(LONGS, a, i, inRange).compare(VectorOperators.LT, key, inRange).trueCount();
+		}
+		int position = fromIndex + less;
+		return position < toIndex && a[position] == key ? position : -(position + 1);
+	}
+
+}
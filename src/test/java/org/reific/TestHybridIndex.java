@@ -0,0 +1,157 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class TestHybridIndex {
+
+	@Test
+	/**
+	 * Test a variety of array sizes for correct behaviour, including insertion points.
+	 */
+	public void testManySizes() throws Exception {
+		int MAX_SIZE = 1024 * 1024;
+		for (int size = 1; size <= MAX_SIZE; size = (int) (size * 1.10 + 1)) {
+			int haystack[] = new int[size];
+			for (int i = 0; i < haystack.length; i++) {
+				haystack[i] = i * 2;
+			}
+			HybridIndex index = new HybridIndex(haystack);
+			for (int i = 0; i < haystack.length; i++) {
+				assertEquals(i, index.search(i * 2));
+				assertEquals(-(i + 1), index.search(i * 2 - 1));
+			}
+			assertEquals(-(size + 1), index.search(Integer.MAX_VALUE));
+			assertEquals(-1, index.search(Integer.MIN_VALUE));
+		}
+	}
+
+	@Test
+	public void testSubRanges() throws Exception {
+		int haystack[] = new int[20000];
+		for (int i = 0; i < haystack.length; i++) {
+			haystack[i] = i * 2;
+		}
+		for (int from = 0; from < haystack.length; from += 1117) {
+			for (int to = from; to <= haystack.length; to += 1331) {
+				HybridIndex index = new HybridIndex(haystack, from, to);
+				for (int key = from * 2 - 3; key < to * 2 + 3; key++) {
+					assertEquals(Arrays.binarySearch(haystack, from, to, key), index.search(key));
+					assertEquals(Arrays.binarySearch(haystack, from, to, key),
+							HybridBinarySearch.binarySearch(haystack, from, to, key));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testDuplicates() throws Exception {
+		int haystack[] = new int[10000];
+		for (int i = 0; i < haystack.length; i++) {
+			haystack[i] = i / 300;
+		}
+		HybridIndex index = new HybridIndex(haystack);
+		for (int key = -1; key <= haystack[haystack.length - 1] + 1; key++) {
+			int expected = Arrays.binarySearch(haystack, key);
+			int actual = index.search(key);
+			if (expected >= 0) {
+				assertEquals(key, haystack[actual]);
+			}
+			else {
+				assertEquals(expected, actual);
+			}
+		}
+	}
+
+	@Test
+	public void testBatched() throws Exception {
+		Random random = new Random(42);
+		for (int size = 0; size <= 100000; size = (int) (size * 1.5 + 1)) {
+			int haystack[] = new int[size];
+			for (int i = 0; i < haystack.length; i++) {
+				haystack[i] = i * 2;
+			}
+			HybridIndex index = new HybridIndex(haystack);
+			int keys[] = new int[21];
+			for (int i = 0; i < keys.length; i++) {
+				keys[i] = random.nextInt(size * 2 + 3) - 1;
+			}
+			int results[] = new int[keys.length];
+			index.search(keys, results);
+			for (int i = 0; i < keys.length; i++) {
+				assertEquals(index.search(keys[i]), results[i]);
+			}
+		}
+	}
+
+	@Test
+	/**
+	 * Several threads alternating between several arrays must always see the index of the array they searched.
+	 */
+	public void testConcurrentCallers() throws Exception {
+		final int NUM_ARRAYS = 4;
+		final int haystacks[][] = new int[NUM_ARRAYS][];
+		for (int h = 0; h < NUM_ARRAYS; h++) {
+			haystacks[h] = new int[4096 * (h + 1)];
+			for (int i = 0; i < haystacks[h].length; i++) {
+				haystacks[h][i] = i * (h + 2);
+			}
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				final int offset = t;
+				results.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws Exception {
+						for (int i = 0; i < 200000; i++) {
+							int h = (i + offset) % NUM_ARRAYS;
+							int[] haystack = haystacks[h];
+							int position = (i * 31) % haystack.length;
+							if (HybridBinarySearch.binarySearch(haystack, 0, haystack.length,
+									haystack[position]) != position) {
+								return false;
+							}
+						}
+						return true;
+					}
+				}));
+			}
+			for (Future<Boolean> result : results) {
+				assertTrue(result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
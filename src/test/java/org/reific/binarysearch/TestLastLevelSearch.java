@@ -0,0 +1,106 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestLastLevelSearch {
+
+	@Test
+	/**
+	 * The build runs the tests a second time against the multi-release jar, where the vector version must be in use.
+	 */
+	public void testVectorizedWhenExpected() throws Exception {
+		assertEquals(Boolean.getBoolean("org.reific.binarysearch.expectVectorized"), LastLevelSearch.vectorized());
+	}
+
+	@Test
+	/**
+	 * Every range of up to several windows, at every alignment, including the partial vectors at either end.
+	 */
+	public void testAllSmallRanges() throws Exception {
+		int haystack[] = new int[3 * LastLevelSearch.WINDOW + 20];
+		long longs[] = new long[haystack.length];
+		for (int i = 0; i < haystack.length; i++) {
+			haystack[i] = i * 2;
+			longs[i] = i * 2L + Integer.MAX_VALUE;
+		}
+		for (int from = 0; from < 20; from++) {
+			for (int to = from; to <= haystack.length; to++) {
+				for (int key = from * 2 - 2; key <= to * 2 + 1; key++) {
+					assertEquals(Arrays.binarySearch(haystack, from, to, key),
+							LastLevelSearch.binarySearch(haystack, from, to, key));
+					assertEquals(Arrays.binarySearch(longs, from, to, key + (long) Integer.MAX_VALUE),
+							LastLevelSearch.binarySearch(longs, from, to, key + (long) Integer.MAX_VALUE));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testExtremesAndDuplicates() throws Exception {
+		Random random = new Random(42);
+		for (int size = 1; size <= 300; size++) {
+			int haystack[] = new int[size];
+			long longs[] = new long[size];
+			for (int i = 0; i < size; i++) {
+				haystack[i] = random.nextInt(size / 4 + 1) - size / 8;
+				longs[i] = haystack[i];
+			}
+			haystack[0] = Integer.MIN_VALUE;
+			haystack[size - 1] = Integer.MAX_VALUE;
+			longs[0] = Long.MIN_VALUE;
+			longs[size - 1] = Long.MAX_VALUE;
+			Arrays.sort(haystack);
+			Arrays.sort(longs);
+			int keys[] = { Integer.MIN_VALUE, Integer.MAX_VALUE, -size / 8 - 1, 0, 1, size / 8 + 1 };
+			for (int key : keys) {
+				check(haystack, key);
+				check(longs, key == Integer.MIN_VALUE ? Long.MIN_VALUE : key == Integer.MAX_VALUE ? Long.MAX_VALUE : key);
+			}
+		}
+	}
+
+	// With duplicates, any position of the key is a correct answer
+	private static void check(int[] haystack, int key) {
+		int expected = Arrays.binarySearch(haystack, key);
+		int actual = LastLevelSearch.binarySearch(haystack, 0, haystack.length, key);
+		if (expected >= 0) {
+			assertEquals(key, haystack[actual]);
+		}
+		else {
+			assertEquals(expected, actual);
+		}
+	}
+
+	private static void check(long[] haystack, long key) {
+		int expected = Arrays.binarySearch(haystack, key);
+		int actual = LastLevelSearch.binarySearch(haystack, 0, haystack.length, key);
+		if (expected >= 0) {
+			assertEquals(key, haystack[actual]);
+		}
+		else {
+			assertEquals(expected, actual);
+		}
+	}
+
+}
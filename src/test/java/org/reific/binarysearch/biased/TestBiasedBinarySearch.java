@@ -20,6 +20,11 @@ package org.reific.binarysearch.biased;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Random;
+
 import org.junit.Assume;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -80,6 +85,299 @@ public class TestBiasedBinarySearch {
 
 
 
+	@Test
+	public void testManySizesLong() throws Exception {
+		int MAX_SIZE = 256 * 1024;
+		for (int size = 1; size <= MAX_SIZE; size = (int) (size * 1.10 + 1)) {
+			long haystack[] = new long[size];
+			for (int i = 0; i < haystack.length; i++) {
+				haystack[i] = i * 2L + Integer.MAX_VALUE;
+			}
+			for (int i = 0; i < haystack.length; i++) {
+				assertEquals(i, BiasedBinarySearch.binarySearch(haystack, i * 2L + Integer.MAX_VALUE));
+				assertEquals(-(i + 1), BiasedBinarySearch.binarySearch(haystack, i * 2L + Integer.MAX_VALUE - 1));
+			}
+			assertTrue(BiasedBinarySearch.binarySearch(haystack, Long.MAX_VALUE) < 0);
+			assertTrue(BiasedBinarySearch.binarySearch(haystack, Long.MIN_VALUE) < 0);
+		}
+	}
+
+	@Test
+	public void testManySizesDouble() throws Exception {
+		int MAX_SIZE = 256 * 1024;
+		for (int size = 1; size <= MAX_SIZE; size = (int) (size * 1.10 + 1)) {
+			double haystack[] = new double[size];
+			for (int i = 0; i < haystack.length; i++) {
+				haystack[i] = i * 2;
+			}
+			for (int i = 0; i < haystack.length; i++) {
+				assertEquals(i, BiasedBinarySearch.binarySearch(haystack, i * 2));
+				assertEquals(-(i + 1), BiasedBinarySearch.binarySearch(haystack, i * 2 - 0.5));
+			}
+			assertTrue(BiasedBinarySearch.binarySearch(haystack, Double.NaN) < 0);
+			assertTrue(BiasedBinarySearch.binarySearch(haystack, Double.NEGATIVE_INFINITY) < 0);
+		}
+	}
+
+	@Test
+	public void testManySizesFloat() throws Exception {
+		int MAX_SIZE = 256 * 1024;
+		for (int size = 1; size <= MAX_SIZE; size = (int) (size * 1.10 + 1)) {
+			float haystack[] = new float[size];
+			for (int i = 0; i < haystack.length; i++) {
+				haystack[i] = i * 2;
+			}
+			for (int i = 0; i < haystack.length; i++) {
+				assertEquals(i, BiasedBinarySearch.binarySearch(haystack, i * 2));
+				assertEquals(-(i + 1), BiasedBinarySearch.binarySearch(haystack, i * 2 - 0.5f));
+			}
+			assertTrue(BiasedBinarySearch.binarySearch(haystack, Float.NaN) < 0);
+			assertTrue(BiasedBinarySearch.binarySearch(haystack, Float.NEGATIVE_INFINITY) < 0);
+		}
+	}
+
+	@Test
+	/**
+	 * NaN and signed zeros must be ordered the same way as Arrays.binarySearch orders them.
+	 */
+	public void testFloatingPointOrdering() throws Exception {
+		double doubles[] = { Double.NEGATIVE_INFINITY, -1.0, -0.0, 0.0, 1.0, Double.POSITIVE_INFINITY, Double.NaN };
+		float floats[] = { Float.NEGATIVE_INFINITY, -1.0f, -0.0f, 0.0f, 1.0f, Float.POSITIVE_INFINITY, Float.NaN };
+		for (int i = 0; i < doubles.length; i++) {
+			assertEquals(Arrays.binarySearch(doubles, doubles[i]), BiasedBinarySearch.binarySearch(doubles, doubles[i]));
+			assertEquals(Arrays.binarySearch(floats, floats[i]), BiasedBinarySearch.binarySearch(floats, floats[i]));
+		}
+		assertEquals(Arrays.binarySearch(doubles, 0, 3, 0.0), BiasedBinarySearch.binarySearch(doubles, 0, 3, 0.0));
+		assertEquals(Arrays.binarySearch(floats, 0, 6, Float.NaN), BiasedBinarySearch.binarySearch(floats, 0, 6, Float.NaN));
+	}
+
+	@Test
+	public void testManySizesShortAndChar() throws Exception {
+		int MAX_SIZE = Short.MAX_VALUE + 1;
+		for (int size = 1; size <= MAX_SIZE; size = (int) (size * 1.10 + 1)) {
+			short shorts[] = new short[size];
+			char chars[] = new char[size];
+			for (int i = 0; i < size; i++) {
+				shorts[i] = (short) (Short.MIN_VALUE + 1 + i * 2);
+				chars[i] = (char) (1 + i * 2);
+			}
+			for (int i = 0; i < size; i++) {
+				assertEquals(i, BiasedBinarySearch.binarySearch(shorts, shorts[i]));
+				assertEquals(-(i + 1), BiasedBinarySearch.binarySearch(shorts, (short) (shorts[i] - 1)));
+				assertEquals(i, BiasedBinarySearch.binarySearch(chars, chars[i]));
+				assertEquals(-(i + 1), BiasedBinarySearch.binarySearch(chars, (char) (chars[i] - 1)));
+			}
+		}
+	}
+
+	@Test
+	public void testAllSizesByte() throws Exception {
+		for (int size = 0; size <= 128; size++) {
+			byte haystack[] = new byte[size];
+			for (int i = 0; i < size; i++) {
+				haystack[i] = (byte) (Byte.MIN_VALUE + 1 + i * 2);
+			}
+			for (int i = 0; i < size; i++) {
+				assertEquals(i, BiasedBinarySearch.binarySearch(haystack, haystack[i]));
+				assertEquals(-(i + 1), BiasedBinarySearch.binarySearch(haystack, (byte) (haystack[i] - 1)));
+			}
+			assertEquals(-1, BiasedBinarySearch.binarySearch(haystack, Byte.MIN_VALUE));
+		}
+	}
+
+	@Test
+	/**
+	 * Sub-ranges must search only within [fromIndex, toIndex) and report insertion points relative to the whole array.
+	 */
+	public void testSubRanges() throws Exception {
+		long haystack[] = new long[3000];
+		for (int i = 0; i < haystack.length; i++) {
+			haystack[i] = i * 2;
+		}
+		for (int from = 0; from < haystack.length; from += 97) {
+			for (int to = from; to <= haystack.length; to += 89) {
+				for (long key = from * 2 - 3; key < to * 2 + 3; key += 7) {
+					assertEquals(Arrays.binarySearch(haystack, from, to, key),
+							BiasedBinarySearch.binarySearch(haystack, from, to, key));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testManySizesComparable() throws Exception {
+		int MAX_SIZE = 16 * 1024;
+		for (int size = 1; size <= MAX_SIZE; size = (int) (size * 1.10 + 1)) {
+			String haystack[] = new String[size];
+			for (int i = 0; i < haystack.length; i++) {
+				haystack[i] = String.format("%08d", i * 2);
+			}
+			for (int i = 0; i < haystack.length; i++) {
+				assertEquals(i, BiasedBinarySearch.binarySearch(haystack, haystack[i]));
+				assertEquals(-(i + 1), BiasedBinarySearch.binarySearch(haystack, String.format("%08d", i * 2 - 1)));
+			}
+			assertEquals(-(size + 1), BiasedBinarySearch.binarySearch(haystack, "a"));
+		}
+	}
+
+	@Test
+	public void testManySizesComparator() throws Exception {
+		int MAX_SIZE = 64 * 1024;
+		Comparator<Integer> reversed = Collections.reverseOrder();
+		for (int size = 1; size <= MAX_SIZE; size = (int) (size * 1.10 + 1)) {
+			Integer haystack[] = new Integer[size];
+			for (int i = 0; i < haystack.length; i++) {
+				haystack[i] = -i * 2;
+			}
+			for (int i = 0; i < haystack.length; i++) {
+				assertEquals(i, BiasedBinarySearch.binarySearch(haystack, -i * 2, reversed));
+				assertEquals(-(i + 2), BiasedBinarySearch.binarySearch(haystack, -i * 2 - 1, reversed));
+			}
+			// a null comparator means natural ordering, as for Arrays.binarySearch
+			assertEquals(Arrays.binarySearch(haystack, 0, 1, 0, null),
+					BiasedBinarySearch.binarySearch(haystack, 0, 1, 0, null));
+		}
+	}
+
+	@Test
+	/**
+	 * Batched searches must give the same results as searching one key at a time, including partial groups.
+	 */
+	public void testBatched() throws Exception {
+		Random random = new Random(42);
+		for (int size = 0; size <= 100000; size = (int) (size * 1.5 + 1)) {
+			int haystack[] = new int[size];
+			for (int i = 0; i < haystack.length; i++) {
+				haystack[i] = i * 2;
+			}
+			for (int numberOfKeys = 0; numberOfKeys <= 21; numberOfKeys += 7) {
+				int keys[] = new int[numberOfKeys];
+				for (int i = 0; i < keys.length; i++) {
+					keys[i] = random.nextInt(size * 2 + 3) - 1;
+				}
+				int results[] = new int[numberOfKeys];
+				BiasedBinarySearch.binarySearch(haystack, keys, results);
+				for (int i = 0; i < keys.length; i++) {
+					assertEquals(Arrays.binarySearch(haystack, keys[i]), results[i]);
+				}
+				int from = size / 3;
+				BiasedBinarySearch.binarySearch(haystack, from, size, keys, results);
+				for (int i = 0; i < keys.length; i++) {
+					assertEquals(Arrays.binarySearch(haystack, from, size, keys[i]), results[i]);
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBatchedResultsTooShort() throws Exception {
+		BiasedBinarySearch.binarySearch(new int[10], new int[3], new int[2]);
+	}
+
+	@Test
+	/**
+	 * Galloping searches over ascending keys (with repeats, gaps of every magnitude, and misses) must agree with
+	 * Arrays.binarySearch.
+	 */
+	public void testSortedKeys() throws Exception {
+		Random random = new Random(42);
+		for (int size = 0; size <= 200000; size = (int) (size * 1.7 + 1)) {
+			int haystack[] = new int[size];
+			long longHaystack[] = new long[size];
+			for (int i = 0; i < haystack.length; i++) {
+				haystack[i] = i * 2;
+				longHaystack[i] = i * 2L - Integer.MAX_VALUE;
+			}
+			for (int numberOfKeys : new int[] { 0, 1, 10, 1000 }) {
+				int keys[] = new int[numberOfKeys];
+				long longKeys[] = new long[numberOfKeys];
+				for (int i = 0; i < keys.length; i++) {
+					keys[i] = random.nextInt(size * 2 + 3) - 1;
+				}
+				Arrays.sort(keys);
+				for (int i = 0; i < keys.length; i++) {
+					longKeys[i] = keys[i] - (long) Integer.MAX_VALUE;
+				}
+				int results[] = new int[numberOfKeys];
+				BiasedBinarySearch.binarySearchSortedKeys(haystack, keys, results);
+				for (int i = 0; i < keys.length; i++) {
+					assertEquals(Arrays.binarySearch(haystack, keys[i]), results[i]);
+				}
+				BiasedBinarySearch.binarySearchSortedKeys(longHaystack, longKeys, results);
+				for (int i = 0; i < keys.length; i++) {
+					assertEquals(Arrays.binarySearch(longHaystack, longKeys[i]), results[i]);
+				}
+				int from = size / 5;
+				int to = size - size / 7;
+				BiasedBinarySearch.binarySearchSortedKeys(haystack, from, to, keys, results);
+				for (int i = 0; i < keys.length; i++) {
+					assertEquals(Arrays.binarySearch(haystack, from, to, keys[i]), results[i]);
+				}
+			}
+		}
+	}
+
+	@Test
+	/**
+	 * Each galloping probe must pass the window of the one before, or it is wasted.
+	 */
+	public void testGallopProbesIncrease() throws Exception {
+		int previous32 = -1;
+		int previous64 = -1;
+		for (int bound = 1; bound > 0; bound <<= 1) {
+			int probe32 = BiasedBinarySearch.gallopProbe32(bound);
+			int probe64 = BiasedBinarySearch.gallopProbe64(bound);
+			assertTrue(probe32 >= bound / 2 && probe32 < bound);
+			assertTrue(probe64 >= bound / 2 && probe64 < bound);
+			assertTrue(probe32 > previous32);
+			assertTrue(probe64 > previous64);
+			previous32 = probe32;
+			previous64 = probe64;
+		}
+	}
+
+	@Test
+	public void testSortedKeysOutOfOrder() throws Exception {
+		int haystack[] = new int[5000];
+		for (int i = 0; i < haystack.length; i++) {
+			haystack[i] = i * 2;
+		}
+		int keys[] = { 9000, 10, 11, 9999, 4, -5, 20000, 0 };
+		int results[] = new int[keys.length];
+		BiasedBinarySearch.binarySearchSortedKeys(haystack, keys, results);
+		for (int i = 0; i < keys.length; i++) {
+			assertEquals(Arrays.binarySearch(haystack, keys[i]), results[i]);
+		}
+	}
+
+	@Test
+	public void testSortedKeysDuplicateElements() throws Exception {
+		long haystack[] = new long[10000];
+		for (int i = 0; i < haystack.length; i++) {
+			haystack[i] = i / 100;
+		}
+		long keys[] = new long[300];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = i / 3 - 1;
+		}
+		int results[] = new int[keys.length];
+		BiasedBinarySearch.binarySearchSortedKeys(haystack, keys, results);
+		for (int i = 0; i < keys.length; i++) {
+			int expected = Arrays.binarySearch(haystack, keys[i]);
+			if (expected >= 0) {
+				assertEquals(keys[i], haystack[results[i]]);
+			}
+			else {
+				assertEquals(expected, results[i]);
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRangeCheck() throws Exception {
+		BiasedBinarySearch.binarySearch(new double[10], 5, 4, 0.0);
+	}
+
 	@Test
 	public void testOneGig() throws Exception {
 
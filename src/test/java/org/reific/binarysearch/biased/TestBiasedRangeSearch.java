@@ -0,0 +1,170 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestBiasedRangeSearch {
+
+	@Test
+	/**
+	 * Runs of duplicates of every length, over a variety of sizes and sub-ranges.
+	 */
+	public void testInts() throws Exception {
+		Random random = new Random(42);
+		for (int size = 0; size <= 5000; size = (int) (size * 1.3 + 1)) {
+			int a[] = new int[size];
+			for (int i = 0; i < size; i++) {
+				a[i] = random.nextInt(size / 3 + 1) * 2;
+			}
+			Arrays.sort(a);
+			for (int from = 0; from <= size; from += size / 3 + 1) {
+				int to = Math.max(from, size - from / 2);
+				for (int key = -2; key <= size + 2; key++) {
+					long range = BiasedRangeSearch.equalRange(a, from, to, key);
+					int lower = BiasedRangeSearch.lowerBound(a, from, to, key);
+					int upper = BiasedRangeSearch.upperBound(a, from, to, key);
+					assertEquals(count(a, from, to, key, false), lower);
+					assertEquals(count(a, from, to, key, true), upper);
+					assertEquals(lower, BiasedRangeSearch.start(range));
+					assertEquals(upper, BiasedRangeSearch.end(range));
+					for (int high = key - 1; high <= key + 5; high += 2) {
+						assertEquals(Math.max(0, count(a, from, to, high, true) - lower),
+								BiasedRangeSearch.countInRange(a, from, to, key, high));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testExtremes() throws Exception {
+		int a[] = { Integer.MIN_VALUE, Integer.MIN_VALUE, 0, Integer.MAX_VALUE, Integer.MAX_VALUE };
+		assertEquals(0, BiasedRangeSearch.lowerBound(a, Integer.MIN_VALUE));
+		assertEquals(2, BiasedRangeSearch.upperBound(a, Integer.MIN_VALUE));
+		assertEquals(3, BiasedRangeSearch.lowerBound(a, Integer.MAX_VALUE));
+		assertEquals(5, BiasedRangeSearch.upperBound(a, Integer.MAX_VALUE));
+		assertEquals(5, BiasedRangeSearch.countInRange(a, Integer.MIN_VALUE, Integer.MAX_VALUE));
+		assertEquals(0, BiasedRangeSearch.countInRange(a, 1, -1));
+		assertEquals(0, BiasedRangeSearch.countInRange(new int[0], 1, 1));
+		long range = BiasedRangeSearch.equalRange(new int[0], 1);
+		assertEquals(0, BiasedRangeSearch.start(range));
+		assertEquals(0, BiasedRangeSearch.end(range));
+	}
+
+	@Test
+	/**
+	 * The other integral types, checked against the int results for the same values.
+	 */
+	public void testOtherIntegralTypes() throws Exception {
+		Random random = new Random(42);
+		int size = 3000;
+		int values[] = new int[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = random.nextInt(200) - 100;
+		}
+		Arrays.sort(values);
+		long longs[] = new long[size];
+		short shorts[] = new short[size];
+		byte bytes[] = new byte[size];
+		char chars[] = new char[size];
+		for (int i = 0; i < size; i++) {
+			longs[i] = values[i] * 0x100000000L;
+			shorts[i] = (short) values[i];
+			bytes[i] = (byte) values[i];
+			chars[i] = (char) (values[i] + 102);
+		}
+		for (int key = -102; key <= 102; key++) {
+			long expected = BiasedRangeSearch.equalRange(values, key);
+			assertEquals(expected, BiasedRangeSearch.equalRange(longs, key * 0x100000000L));
+			assertEquals(expected, BiasedRangeSearch.equalRange(shorts, (short) key));
+			assertEquals(expected, BiasedRangeSearch.equalRange(bytes, (byte) key));
+			assertEquals(expected, BiasedRangeSearch.equalRange(chars, (char) (key + 102)));
+			assertEquals(BiasedRangeSearch.start(expected), BiasedRangeSearch.lowerBound(longs, key * 0x100000000L));
+			assertEquals(BiasedRangeSearch.start(expected), BiasedRangeSearch.lowerBound(shorts, (short) key));
+			assertEquals(BiasedRangeSearch.start(expected), BiasedRangeSearch.lowerBound(bytes, (byte) key));
+			assertEquals(BiasedRangeSearch.start(expected), BiasedRangeSearch.lowerBound(chars, (char) (key + 102)));
+			assertEquals(BiasedRangeSearch.end(expected), BiasedRangeSearch.upperBound(longs, key * 0x100000000L));
+			assertEquals(BiasedRangeSearch.end(expected), BiasedRangeSearch.upperBound(shorts, (short) key));
+			assertEquals(BiasedRangeSearch.end(expected), BiasedRangeSearch.upperBound(bytes, (byte) key));
+			assertEquals(BiasedRangeSearch.end(expected), BiasedRangeSearch.upperBound(chars, (char) (key + 102)));
+			int count = BiasedRangeSearch.countInRange(values, key, key + 10);
+			assertEquals(count, BiasedRangeSearch.countInRange(longs, key * 0x100000000L, (key + 10) * 0x100000000L));
+			assertEquals(count, BiasedRangeSearch.countInRange(shorts, (short) key, (short) (key + 10)));
+			assertEquals(count, BiasedRangeSearch.countInRange(chars, (char) (key + 102), (char) (key + 112)));
+		}
+	}
+
+	@Test
+	/**
+	 * Floating point values must be ordered as Arrays.sort orders them, including signed zeros, infinities and NaN.
+	 */
+	public void testFloatingPoint() throws Exception {
+		double specials[] = { Double.NEGATIVE_INFINITY, -1.5, -0.0, 0.0, 0.25, 1.5,
+				Double.POSITIVE_INFINITY, Double.NaN };
+		Random random = new Random(42);
+		double doubles[] = new double[1000];
+		for (int i = 0; i < doubles.length; i++) {
+			doubles[i] = specials[random.nextInt(specials.length)];
+		}
+		Arrays.sort(doubles);
+		float floats[] = new float[doubles.length];
+		for (int i = 0; i < doubles.length; i++) {
+			floats[i] = (float) doubles[i];
+		}
+		for (double key : specials) {
+			int lower = 0;
+			while (lower < doubles.length && Double.compare(doubles[lower], key) < 0) {
+				lower++;
+			}
+			int upper = lower;
+			while (upper < doubles.length && Double.compare(doubles[upper], key) == 0) {
+				upper++;
+			}
+			assertEquals(lower, BiasedRangeSearch.lowerBound(doubles, key));
+			assertEquals(upper, BiasedRangeSearch.upperBound(doubles, key));
+			assertEquals(upper - lower, BiasedRangeSearch.countInRange(doubles, key, key));
+			assertEquals(lower, BiasedRangeSearch.lowerBound(floats, (float) key));
+			assertEquals(upper, BiasedRangeSearch.upperBound(floats, (float) key));
+			assertEquals(BiasedRangeSearch.equalRange(doubles, key), BiasedRangeSearch.equalRange(floats, (float) key));
+		}
+		assertEquals(doubles.length, BiasedRangeSearch.countInRange(doubles, Double.NEGATIVE_INFINITY, Double.NaN));
+		assertEquals(0, BiasedRangeSearch.countInRange(floats, 0.0f, -0.0f));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBadRange() throws Exception {
+		BiasedRangeSearch.lowerBound(new int[10], 5, 4, 0);
+	}
+
+	/**
+	 * The number of elements of [from, to) below key (or at most key, if inclusive), plus from
+	 */
+	private static int count(int[] a, int from, int to, int key, boolean inclusive) {
+		int i = from;
+		while (i < to && (a[i] < key || inclusive && a[i] == key)) {
+			i++;
+		}
+		return i;
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Properties;
+
+import org.junit.Test;
+
+public class TestBiasingConstant {
+
+	private static final CacheGeometry HASWELL = new CacheGeometry(Collections.singletonList(
+			new CacheGeometry.Cache(1, true, 64, 64, 8)), 4096);
+
+	@Test
+	public void testPrecedence() throws Exception {
+		Properties table = new Properties();
+		assertEquals(42, BiasingConstant.select(table, HASWELL, 42));
+		assertEquals(42, BiasingConstant.select(table, null, 42));
+
+		table.setProperty(BiasingConstant.DEFAULT_KEY, "7");
+		assertEquals(7, BiasingConstant.select(table, HASWELL, 42));
+		assertEquals(7, BiasingConstant.select(table, null, 42));
+
+		table.setProperty(HASWELL.key(), "0x4bf43fb");
+		assertEquals(79643643, BiasingConstant.select(table, HASWELL, 42));
+		assertEquals(7, BiasingConstant.select(table, null, 42));
+
+		table.setProperty(HASWELL.key(), "0xffffffff");
+		assertEquals(-1, BiasingConstant.select(table, HASWELL, 42));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBadValue() throws Exception {
+		Properties table = new Properties();
+		table.setProperty(BiasingConstant.DEFAULT_KEY, "seven");
+		BiasingConstant.select(table, null, 42);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMissingTable() throws Exception {
+		BiasingConstant.loadTable("/nonexistent/biased-constants.properties");
+	}
+
+	@Test
+	public void testTableFile() throws Exception {
+		File file = File.createTempFile("biased-constants", ".properties");
+		try {
+			write(file, "format=1\ndefault=0x1234\n");
+			assertEquals(0x1234, BiasingConstant.select(BiasingConstant.loadTable(file.getPath()), HASWELL, 42));
+			write(file, "format=2\ndefault=0x1234\n");
+			try {
+				BiasingConstant.loadTable(file.getPath());
+				fail();
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static void write(File file, String contents) throws IOException {
+		try (FileWriter writer = new FileWriter(file)) {
+			writer.write(contents);
+		}
+	}
+
+	@Test
+	/**
+	 * The shipped table must parse, and by default gives the constant compiled into BiasedBinarySearch.
+	 */
+	public void testShippedTable() throws Exception {
+		Properties table = BiasingConstant.loadTable(null);
+		assertEquals(BiasedBinarySearch.COMPILED_32_BIT_CONSTANT,
+				BiasingConstant.select(table, null, 42));
+		// Every entry parses
+		for (String key : table.stringPropertyNames()) {
+			Long.decode(table.getProperty(key));
+		}
+	}
+
+}
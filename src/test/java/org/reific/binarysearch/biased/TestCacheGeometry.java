@@ -0,0 +1,108 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestCacheGeometry {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	/**
+	 * An i7-4790K as described by sysfs, with the instruction cache ignored.
+	 */
+	public void testDetect() throws Exception {
+		File cache = folder.newFolder("cache");
+		index(cache, "index0", 1, "Data", 64, 64, 8);
+		index(cache, "index1", 1, "Instruction", 64, 64, 8);
+		index(cache, "index2", 2, "Unified", 512, 64, 8);
+		index(cache, "index3", 3, "Unified", 8192, 64, 16);
+		write(new File(cache, "uevent"), "");
+		File smaps = folder.newFile("smaps");
+		write(smaps, "00400000-00401000 r-xp 00000000 08:01 1234 /usr/bin/java\nSize:                  4 kB\n"
+				+ "KernelPageSize:        4 kB\nMMUPageSize:           4 kB\n");
+
+		CacheGeometry geometry = CacheGeometry.detect(cache, smaps);
+		assertEquals(3, geometry.caches().size());
+		assertEquals(4096, geometry.pageSizeInBytes());
+		assertEquals("L1d_64x64x8,L2_512x64x8,L3_8192x64x16,page_4096", geometry.key());
+	}
+
+	@Test
+	public void testMissing() throws Exception {
+		File smaps = folder.newFile("smaps");
+		write(smaps, "KernelPageSize:        4 kB\n");
+		assertNull(CacheGeometry.detect(new File(folder.getRoot(), "absent"), smaps));
+
+		File cache = folder.newFolder("cache");
+		assertNull(CacheGeometry.detect(cache, smaps));
+
+		index(cache, "index0", 1, "Data", 64, 64, 8);
+		assertNull(CacheGeometry.detect(cache, new File(folder.getRoot(), "absent")));
+		assertEquals("L1d_64x64x8,page_4096", CacheGeometry.detect(cache, smaps).key());
+	}
+
+	@Test
+	public void testMalformed() throws Exception {
+		File cache = folder.newFolder("cache");
+		index(cache, "index0", 1, "Data", 64, 64, 8);
+		write(new File(new File(cache, "index0"), "ways_of_associativity"), "\n");
+		File smaps = folder.newFile("smaps");
+		write(smaps, "KernelPageSize:        4 kB\n");
+		assertNull(CacheGeometry.detect(cache, smaps));
+	}
+
+	@Test
+	/**
+	 * Detection on the build machine must not throw, whatever it is.
+	 */
+	public void testDetectThisMachine() throws Exception {
+		CacheGeometry geometry = CacheGeometry.detect();
+		if (geometry != null) {
+			assertEquals(geometry.key(), geometry.toString());
+		}
+	}
+
+	private static void index(File cache, String name, int level, String type, int sets, int lineSize, int ways)
+			throws IOException {
+		File index = new File(cache, name);
+		index.mkdir();
+		write(new File(index, "level"), level + "\n");
+		write(new File(index, "type"), type + "\n");
+		write(new File(index, "number_of_sets"), sets + "\n");
+		write(new File(index, "coherency_line_size"), lineSize + "\n");
+		write(new File(index, "ways_of_associativity"), ways + "\n");
+	}
+
+	private static void write(File file, String contents) throws IOException {
+		try (FileWriter writer = new FileWriter(file)) {
+			writer.write(contents);
+		}
+	}
+
+}
@@ -0,0 +1,154 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class TestHotKeyCache {
+
+	@Test
+	/**
+	 * Results must match Arrays.binarySearch on both the first (missing) and second (hitting) search, including for
+	 * the keys used to initialize empty slots.
+	 */
+	public void testMatchesBinarySearch() throws Exception {
+		for (int size = 0; size <= 100000; size = (int) (size * 1.5 + 1)) {
+			int haystack[] = new int[size];
+			for (int i = 0; i < haystack.length; i++) {
+				haystack[i] = i * 2 - 1;
+			}
+			for (int capacity : new int[] { 1, 2, 3, 64, 4096 }) {
+				HotKeyCache cache = new HotKeyCache(haystack, 0, size, capacity, false);
+				for (int key : new int[] { 0, 1, -1, Integer.MIN_VALUE, Integer.MAX_VALUE }) {
+					assertEquals(Arrays.binarySearch(haystack, key), cache.search(key));
+					assertEquals(Arrays.binarySearch(haystack, key), cache.search(key));
+				}
+				for (int key = -3; key < size * 2 + 3; key += 1 + size / 500) {
+					assertEquals(Arrays.binarySearch(haystack, key), cache.search(key));
+					assertEquals(Arrays.binarySearch(haystack, key), cache.search(key));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSubRange() throws Exception {
+		int haystack[] = new int[1000];
+		for (int i = 0; i < haystack.length; i++) {
+			haystack[i] = i * 2;
+		}
+		HotKeyCache cache = new HotKeyCache(haystack, 100, 900, 16, false);
+		for (int key = 190; key < 1810; key++) {
+			assertEquals(Arrays.binarySearch(haystack, 100, 900, key), cache.search(key));
+		}
+	}
+
+	@Test
+	public void testStatistics() throws Exception {
+		int haystack[] = new int[1000];
+		for (int i = 0; i < haystack.length; i++) {
+			haystack[i] = i * 2;
+		}
+		HotKeyCache cache = new HotKeyCache(haystack, 0, haystack.length, 1024, true);
+		assertEquals(0, cache.hitRatio(), 0);
+		cache.search(42);
+		cache.search(42);
+		cache.search(42);
+		cache.search(43);
+		assertEquals(2, cache.hits());
+		assertEquals(2, cache.misses());
+		assertEquals(0.5, cache.hitRatio(), 0);
+
+		HotKeyCache uncounted = new HotKeyCache(haystack);
+		uncounted.search(42);
+		uncounted.search(42);
+		assertEquals(0, uncounted.hits() + uncounted.misses());
+	}
+
+	@Test
+	/**
+	 * A skewed workload over a small cache should mostly hit.
+	 */
+	public void testSkewedHitRatio() throws Exception {
+		int haystack[] = new int[1 << 20];
+		for (int i = 0; i < haystack.length; i++) {
+			haystack[i] = i * 3;
+		}
+		HotKeyCache cache = new HotKeyCache(haystack, 0, haystack.length, 4096, true);
+		Random random = new Random(42);
+		for (int i = 0; i < 100000; i++) {
+			// 90% of searches go to 256 hot keys
+			int position = random.nextInt(10) != 0 ? random.nextInt(256) * 4001 : random.nextInt(haystack.length);
+			assertEquals(position, cache.search(haystack[position]));
+		}
+		assertTrue(String.valueOf(cache.hitRatio()), cache.hitRatio() > 0.8);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBadCapacity() throws Exception {
+		new HotKeyCache(new int[10], 0, 10, 0, false);
+	}
+
+	@Test
+	/**
+	 * Threads racing to fill the same slots must never see a result belonging to another key.
+	 */
+	public void testConcurrentCallers() throws Exception {
+		final int haystack[] = new int[100000];
+		for (int i = 0; i < haystack.length; i++) {
+			haystack[i] = i * 2;
+		}
+		final HotKeyCache cache = new HotKeyCache(haystack, 0, haystack.length, 64, false);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				final int offset = t;
+				results.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws Exception {
+						for (int i = 0; i < 200000; i++) {
+							int position = ((i + offset) * 31) % 1000;
+							if (cache.search(haystack[position]) != position) {
+								return false;
+							}
+						}
+						return true;
+					}
+				}));
+			}
+			for (Future<Boolean> result : results) {
+				assertTrue(result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,129 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.layout;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestEytzingerIntArray {
+
+	@Test
+	/**
+	 * Test a variety of array sizes for correct behaviour.
+	 */
+	public void testManySizes() throws Exception {
+		int MAX_SIZE = 1024 * 1024;
+		for (int size = 0; size <= MAX_SIZE; size = (int) (size * 1.10 + 1)) {
+			int haystack[] = new int[size];
+			for (int i = 0; i < haystack.length; i++) {
+				haystack[i] = i * 2;
+			}
+			EytzingerIntArray eytzinger = new EytzingerIntArray(haystack);
+			assertEquals(size, eytzinger.size());
+			for (int i = 0; i < haystack.length; i++) {
+				assertEquals(i, eytzinger.search(i * 2));
+				assertEquals(-(i + 1), eytzinger.search(i * 2 - 1));
+				assertEquals(i, eytzinger.lowerBound(i * 2 - 1));
+				assertEquals(i, eytzinger.rank(i * 2));
+			}
+			assertEquals(-(size + 1), eytzinger.search(Integer.MAX_VALUE));
+			assertEquals(-1, eytzinger.search(Integer.MIN_VALUE));
+			assertEquals(size, eytzinger.lowerBound(Integer.MAX_VALUE));
+		}
+	}
+
+	@Test
+	public void testDuplicatesAndExtremes() throws Exception {
+		Random random = new Random(42);
+		for (int size = 2; size <= 3000; size += 7) {
+			int haystack[] = new int[size];
+			for (int i = 0; i < size; i++) {
+				haystack[i] = random.nextInt(size / 4 + 1) - size / 8;
+			}
+			haystack[0] = Integer.MIN_VALUE;
+			haystack[size - 1] = Integer.MAX_VALUE;
+			Arrays.sort(haystack);
+
+			EytzingerIntArray eytzinger = new EytzingerIntArray(haystack);
+			for (int key = -size / 8 - 2; key <= size / 8 + 2; key++) {
+				assertEquals(lowerBound(haystack, key), eytzinger.lowerBound(key));
+				int found = eytzinger.search(key);
+				if (found >= 0) {
+					assertEquals(lowerBound(haystack, key), found);
+				}
+				else {
+					assertEquals(Arrays.binarySearch(haystack, key), found);
+				}
+			}
+			assertEquals(0, eytzinger.search(Integer.MIN_VALUE));
+			assertEquals(lowerBound(haystack, Integer.MAX_VALUE), eytzinger.search(Integer.MAX_VALUE));
+		}
+	}
+
+	@Test
+	public void testSubRange() throws Exception {
+		int haystack[] = new int[1000];
+		for (int i = 0; i < haystack.length; i++) {
+			haystack[i] = i * 2;
+		}
+		EytzingerIntArray eytzinger = new EytzingerIntArray(haystack, 100, 900);
+		assertEquals(800, eytzinger.size());
+		assertEquals(0, eytzinger.search(200));
+		assertEquals(-1, eytzinger.search(0));
+		assertEquals(-801, eytzinger.search(1800));
+		assertEquals(799, eytzinger.search(1798));
+	}
+
+	@Test
+	/**
+	 * Batched searches must give the same results as searching one key at a time, including partial groups.
+	 */
+	public void testBatched() throws Exception {
+		Random random = new Random(42);
+		for (int size = 0; size <= 100000; size = (int) (size * 1.5 + 1)) {
+			int haystack[] = new int[size];
+			for (int i = 0; i < haystack.length; i++) {
+				haystack[i] = i * 2;
+			}
+			EytzingerIntArray eytzinger = new EytzingerIntArray(haystack);
+			for (int numberOfKeys = 0; numberOfKeys <= 21; numberOfKeys += 7) {
+				int keys[] = new int[numberOfKeys];
+				for (int i = 0; i < keys.length; i++) {
+					keys[i] = random.nextInt(size * 2 + 3) - 1;
+				}
+				int results[] = new int[numberOfKeys];
+				eytzinger.search(keys, results);
+				for (int i = 0; i < keys.length; i++) {
+					assertEquals(eytzinger.search(keys[i]), results[i]);
+				}
+			}
+		}
+	}
+
+	private static int lowerBound(int[] a, int key) {
+		int i = 0;
+		while (i < a.length && a[i] < key) {
+			i++;
+		}
+		return i;
+	}
+
+}
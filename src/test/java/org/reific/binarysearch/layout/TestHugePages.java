@@ -0,0 +1,103 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.layout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Test;
+import org.reific.binarysearch.layout.MappedIntArray.Layout;
+
+public class TestHugePages {
+
+	@Test
+	public void testIsHuge() throws Exception {
+		assertTrue(HugePages.isHuge("hugetlbfs", "rw,relatime,pagesize=2M"));
+		assertTrue(HugePages.isHuge("hugetlbfs", "rw,relatime"));
+		assertFalse(HugePages.isHuge("hugetlbfs", "rw,relatime,pagesize=1024M"));
+		assertTrue(HugePages.isHuge("tmpfs", "rw,nosuid,huge=within_size"));
+		assertFalse(HugePages.isHuge("tmpfs", "rw,nosuid,huge=advise"));
+		assertFalse(HugePages.isHuge("tmpfs", "rw,nosuid,size=6147400k"));
+		assertFalse(HugePages.isHuge("ext4", "rw,relatime"));
+	}
+
+	@Test
+	public void testDirectoryFromMounts() throws Exception {
+		File huge = Files.createTempDirectory("huge pages").toFile();
+		File small = Files.createTempDirectory("small").toFile();
+		File gigantic = Files.createTempDirectory("gigantic").toFile();
+		File mounts = File.createTempFile("mounts", "");
+		try {
+			write(mounts, "sysfs /sys sysfs rw,nosuid 0 0\n"
+					+ "tmpfs /sys/fs/cgroup tmpfs rw,relatime,mode=755 0 0\n"
+					+ "hugetlbfs " + gigantic.getPath() + " hugetlbfs rw,relatime,pagesize=1024M 0 0\n"
+					+ "tmpfs " + small.getPath() + " tmpfs rw,relatime,size=6147400k 0 0\n"
+					+ "hugetlbfs /nonexistent hugetlbfs rw,relatime,pagesize=2M 0 0\n"
+					+ "hugetlbfs " + huge.getPath().replace(" ", "\\040") + " hugetlbfs rw,relatime,pagesize=2M 0 0\n");
+			assertEquals(huge, HugePages.directory(mounts, true));
+			assertEquals(small, HugePages.directory(mounts, false));
+
+			// 1G pages are neither 2MB pages nor small ones
+			write(mounts, "hugetlbfs " + gigantic.getPath() + " hugetlbfs rw,relatime,pagesize=1024M 0 0\n");
+			assertNull(HugePages.directory(mounts, true));
+			assertNull(HugePages.directory(mounts, false));
+
+			write(mounts, "/dev/sda1 / ext4 rw,relatime 0 0\n");
+			assertNull(HugePages.directory(mounts, true));
+			assertNull(HugePages.directory(mounts, false));
+			assertNull(HugePages.directory(new File("/nonexistent/mounts"), true));
+		} finally {
+			huge.delete();
+			small.delete();
+			gigantic.delete();
+			mounts.delete();
+		}
+	}
+
+	@Test
+	/**
+	 * Whatever this machine offers, an index can be written there and searched.
+	 */
+	public void testWriteToDirectory() throws Exception {
+		File file = new File(HugePages.directory(), "test-" + System.nanoTime() + ".index");
+		try {
+			int haystack[] = new int[100000];
+			for (int i = 0; i < haystack.length; i++) {
+				haystack[i] = i * 2;
+			}
+			MappedIntArray.write(file, haystack, Layout.BTREE);
+			MappedIntArray mapped = MappedIntArray.open(file);
+			assertEquals(1234, mapped.search(2468));
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static void write(File file, String contents) throws IOException {
+		try (FileWriter writer = new FileWriter(file)) {
+			writer.write(contents);
+		}
+	}
+
+}
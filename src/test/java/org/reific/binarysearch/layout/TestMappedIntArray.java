@@ -0,0 +1,142 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.layout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.reific.binarysearch.layout.MappedIntArray.Layout;
+
+public class TestMappedIntArray {
+
+	private File file;
+
+	@Before
+	public void createFile() throws IOException {
+		file = File.createTempFile("mapped", ".index");
+	}
+
+	@After
+	public void deleteFile() {
+		file.delete();
+	}
+
+	@Test
+	/**
+	 * Every layout gives the same answers as the sorted array, with chunks small enough that searches cross them.
+	 */
+	public void testManySizes() throws Exception {
+		for (Layout layout : Layout.values()) {
+			for (int size = 0; size <= 100000; size = (int) (size * 1.5 + 1)) {
+				int haystack[] = new int[size];
+				for (int i = 0; i < haystack.length; i++) {
+					haystack[i] = i * 2;
+				}
+				MappedIntArray.write(file, haystack, layout);
+				for (int chunkShift : new int[] { 6, 28 }) {
+					MappedIntArray mapped = new MappedIntArray(file, chunkShift);
+					assertEquals(layout, mapped.layout());
+					assertEquals(size, mapped.size());
+					for (int i = 0; i < haystack.length; i++) {
+						assertEquals(i, mapped.search(i * 2));
+						assertEquals(-(i + 1), mapped.search(i * 2 - 1));
+						assertEquals(i, mapped.lowerBound(i * 2 - 1));
+					}
+					assertEquals(-(size + 1), mapped.search(Integer.MAX_VALUE));
+					assertEquals(-1, mapped.search(Integer.MIN_VALUE));
+					assertEquals(size, mapped.lowerBound(Integer.MAX_VALUE));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testDuplicatesAndSubRange() throws Exception {
+		Random random = new Random(42);
+		int haystack[] = new int[5000];
+		for (int i = 0; i < haystack.length; i++) {
+			haystack[i] = random.nextInt(1000);
+		}
+		Arrays.sort(haystack);
+		int from = 700;
+		int to = 4200;
+		for (Layout layout : Layout.values()) {
+			MappedIntArray.write(file, haystack, from, to, layout);
+			MappedIntArray mapped = MappedIntArray.open(file);
+			for (int key = -1; key <= 1001; key++) {
+				int lowerBound = lowerBound(haystack, from, to, key) - from;
+				assertEquals(lowerBound, mapped.lowerBound(key));
+				int found = mapped.search(key);
+				if (found >= 0) {
+					assertEquals(key, haystack[from + found]);
+				}
+				else {
+					assertEquals(-(lowerBound + 1), found);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testLayoutIsHugePageAligned() throws Exception {
+		MappedIntArray.write(file, new int[] { 1, 2, 3 }, Layout.SORTED);
+		assertEquals(0, MappedIntArray.DATA_OFFSET % HugePages.HUGE_PAGE_SIZE);
+		// A whole number of huge pages, as hugetlbfs requires
+		assertEquals(2 * HugePages.HUGE_PAGE_SIZE, file.length());
+	}
+
+	@Test
+	public void testCorruptFiles() throws Exception {
+		try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+			out.write(new byte[100]);
+		}
+		expectIOException();
+
+		MappedIntArray.write(file, new int[] { 1, 2, 3 }, Layout.BTREE);
+		try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+			out.setLength(file.length() - 4);
+		}
+		expectIOException();
+	}
+
+	private void expectIOException() {
+		try {
+			MappedIntArray.open(file);
+			fail();
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	private static int lowerBound(int[] a, int from, int to, int key) {
+		int i = from;
+		while (i < to && a[i] < key) {
+			i++;
+		}
+		return i;
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.learned;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestInterpolationSearch {
+
+	@Test
+	/**
+	 * Test a variety of array sizes for correct behaviour, including insertion points.
+	 */
+	public void testManySizes() throws Exception {
+		for (int size = 0; size <= 1024 * 1024; size = (int) (size * 1.5 + 1)) {
+			int haystack[] = new int[size];
+			for (int i = 0; i < haystack.length; i++) {
+				haystack[i] = i * 2;
+			}
+			for (int i = 0; i < haystack.length; i++) {
+				assertEquals(i, InterpolationSearch.binarySearch(haystack, i * 2));
+				assertEquals(-(i + 1), InterpolationSearch.binarySearch(haystack, i * 2 - 1));
+			}
+			assertEquals(-(size + 1), InterpolationSearch.binarySearch(haystack, Integer.MAX_VALUE));
+			assertEquals(-1, InterpolationSearch.binarySearch(haystack, Integer.MIN_VALUE));
+		}
+	}
+
+	@Test
+	public void testSkewedKeysAndSubRanges() throws Exception {
+		Random random = new Random(42);
+		for (int size = 1; size <= 50000; size = size * 3 + 1) {
+			int haystack[] = new int[size];
+			for (int i = 0; i < size; i++) {
+				haystack[i] = (int) Math.pow(random.nextInt(1 << 10), 3) - (1 << 20);
+			}
+			haystack[0] = Integer.MIN_VALUE;
+			haystack[size - 1] = Integer.MAX_VALUE;
+			Arrays.sort(haystack);
+			int from = size / 5;
+			int to = size - size / 7;
+			for (int i = 0; i < 2000; i++) {
+				int key = random.nextBoolean() ? haystack[random.nextInt(size)] : random.nextInt();
+				TestLearnedIntIndex.check(haystack, from, to, key,
+						InterpolationSearch.binarySearch(haystack, from, to, key));
+			}
+		}
+	}
+
+}
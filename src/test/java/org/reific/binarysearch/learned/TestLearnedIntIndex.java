@@ -0,0 +1,99 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.learned;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestLearnedIntIndex {
+
+	@Test
+	/**
+	 * Test a variety of array sizes for correct behaviour, including insertion points.
+	 */
+	public void testManySizes() throws Exception {
+		for (int size = 0; size <= 1024 * 1024; size = (int) (size * 1.5 + 1)) {
+			int haystack[] = new int[size];
+			for (int i = 0; i < haystack.length; i++) {
+				haystack[i] = i * 3;
+			}
+			LearnedIntIndex index = new LearnedIntIndex(haystack);
+			for (int i = 0; i < haystack.length; i++) {
+				assertEquals(i, index.search(i * 3));
+				assertEquals(-(i + 1), index.search(i * 3 - 1));
+			}
+			assertEquals(-(size + 1), index.search(Integer.MAX_VALUE));
+			assertEquals(-1, index.search(Integer.MIN_VALUE));
+		}
+	}
+
+	@Test
+	public void testEvenlySpreadKeysGiveNarrowWindows() throws Exception {
+		int haystack[] = new int[1 << 20];
+		for (int i = 0; i < haystack.length; i++) {
+			haystack[i] = i * 7;
+		}
+		assertTrue(new LearnedIntIndex(haystack).maxWindow() <= 2);
+	}
+
+	@Test
+	/**
+	 * Skewed keys, duplicates, extremes and sub-ranges, which the models fit badly, must still give correct results.
+	 */
+	public void testSkewedKeys() throws Exception {
+		Random random = new Random(42);
+		for (int size = 1; size <= 50000; size = size * 3 + 1) {
+			int haystack[] = new int[size];
+			for (int i = 0; i < size; i++) {
+				// Mostly small, with a long tail
+				haystack[i] = (int) Math.pow(random.nextInt(1 << 10), 3) - (1 << 20);
+			}
+			haystack[0] = Integer.MIN_VALUE;
+			haystack[size - 1] = Integer.MAX_VALUE;
+			Arrays.sort(haystack);
+			int from = size / 5;
+			int to = size - size / 7;
+			for (int models : new int[] { 1, 7, size / 3 + 1 }) {
+				LearnedIntIndex index = new LearnedIntIndex(haystack, from, to, models);
+				for (int i = 0; i < 2000; i++) {
+					int key = random.nextBoolean() ? haystack[random.nextInt(size)] : random.nextInt();
+					check(haystack, from, to, key, index.search(key));
+				}
+				check(haystack, from, to, Integer.MIN_VALUE, index.search(Integer.MIN_VALUE));
+				check(haystack, from, to, Integer.MAX_VALUE, index.search(Integer.MAX_VALUE));
+			}
+		}
+	}
+
+	// With duplicates, any position of the key is a correct answer
+	static void check(int[] haystack, int from, int to, int key, int actual) {
+		int expected = Arrays.binarySearch(haystack, from, to, key);
+		if (expected >= 0) {
+			assertTrue(actual >= from && actual < to);
+			assertEquals(key, haystack[actual]);
+		}
+		else {
+			assertEquals(expected, actual);
+		}
+	}
+
+}
@@ -0,0 +1,236 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TestBufferedIntSortedSet {
+
+	@Test
+	/**
+	 * Random adds, removes and merges, against a TreeSet.
+	 */
+	public void testAgainstTreeSet() throws Exception {
+		Random random = new Random(42);
+		int values[] = new int[10000];
+		TreeSet<Integer> expected = new TreeSet<>();
+		for (int i = 0; i < values.length; i++) {
+			values[i] = random.nextInt(40000);
+			expected.add(values[i]);
+		}
+		BufferedIntSortedSet set = new BufferedIntSortedSet(values);
+		for (int i = 0; i < 20000; i++) {
+			int key = random.nextInt(40000);
+			if (random.nextBoolean()) {
+				assertEquals(expected.add(key), set.add(key));
+			}
+			else {
+				assertEquals(expected.remove(key), set.remove(key));
+			}
+			assertEquals(expected.size(), set.size());
+			if (i % 3000 == 0) {
+				check(expected, set, random);
+				set.merge();
+				assertEquals(0, set.bufferedKeys());
+				check(expected, set, random);
+			}
+		}
+		check(expected, set, random);
+	}
+
+	private static void check(TreeSet<Integer> expected, BufferedIntSortedSet set, Random random) {
+		int[] keys = new int[expected.size()];
+		int i = 0;
+		for (int key : expected) {
+			keys[i++] = key;
+		}
+		assertArrayEquals(keys, set.toArray());
+		for (int j = 0; j < 500; j++) {
+			int key = random.nextInt(40010) - 5;
+			assertEquals(expected.contains(key), set.contains(key));
+			assertEquals(expected.headSet(key).size(), set.rank(key));
+			int high = key + random.nextInt(100) - 10;
+			assertEquals(high < key ? 0 : expected.subSet(key, true, high, true).size(), set.countInRange(key, high));
+		}
+	}
+
+	@Test
+	public void testReAddAndRemove() throws Exception {
+		BufferedIntSortedSet set = new BufferedIntSortedSet(1, 2, 3);
+		assertTrue(set.remove(2));
+		assertFalse(set.remove(2));
+		assertFalse(set.contains(2));
+		assertTrue(set.add(2));
+		assertFalse(set.add(2));
+		assertTrue(set.add(4));
+		assertTrue(set.remove(4));
+		assertEquals(0, set.bufferedKeys());
+		assertTrue(set.add(5));
+		assertTrue(set.remove(1));
+		assertEquals(2, set.bufferedKeys());
+		set.merge();
+		assertEquals(0, set.bufferedKeys());
+		assertEquals("[2, 3, 5]", set.toString());
+		assertTrue(new BufferedIntSortedSet().isEmpty());
+	}
+
+	@Test
+	/**
+	 * Writers churn their own keys while background merges swap the base, and readers must always find the keys
+	 * that nobody touches. Every write must survive the merges.
+	 */
+	public void testConcurrentMerges() throws Exception {
+		final int stable[] = new int[5000];
+		for (int i = 0; i < stable.length; i++) {
+			stable[i] = i * 10;
+		}
+		ExecutorService merger = Executors.newSingleThreadExecutor();
+		ExecutorService threads = Executors.newFixedThreadPool(4);
+		try {
+			final BufferedIntSortedSet set = new BufferedIntSortedSet(stable, merger, 64);
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int t = 0; t < 2; t++) {
+				final int writer = t;
+				results.add(threads.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws Exception {
+						// Writer t owns the keys 10k + t + 1, and ends with the even ones present
+						for (int round = 0; round < 3; round++) {
+							for (int i = 0; i < stable.length; i++) {
+								set.add(i * 10 + writer + 1);
+							}
+							for (int i = 1; i < stable.length; i += 2) {
+								set.remove(i * 10 + writer + 1);
+							}
+						}
+						return true;
+					}
+				}));
+			}
+			for (int t = 0; t < 2; t++) {
+				results.add(threads.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws Exception {
+						for (int round = 0; round < 20; round++) {
+							for (int key : stable) {
+								if (!set.contains(key)) {
+									return false;
+								}
+							}
+						}
+						return true;
+					}
+				}));
+			}
+			for (Future<Boolean> result : results) {
+				assertTrue(result.get());
+			}
+			merger.shutdown();
+			assertTrue(merger.awaitTermination(1, TimeUnit.MINUTES));
+			set.merge();
+			assertEquals(0, set.bufferedKeys());
+			assertEquals(stable.length * 2, set.size());
+			for (int i = 0; i < stable.length; i++) {
+				assertTrue(set.contains(i * 10));
+				assertEquals(i % 2 == 0, set.contains(i * 10 + 1));
+				assertEquals(i % 2 == 0, set.contains(i * 10 + 2));
+			}
+		} finally {
+			merger.shutdownNow();
+			threads.shutdown();
+		}
+	}
+
+	@Test
+	/**
+	 * A write that takes effect must not fail because its merge could not be scheduled, and a later write must be able
+	 * to schedule one.
+	 */
+	public void testRejectedMerge() throws Exception {
+		final int[] calls = new int[2];
+		Executor executor = new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				if (calls[0]++ == 0) {
+					throw new RejectedExecutionException();
+				}
+				calls[1]++;
+				command.run();
+			}
+		};
+		BufferedIntSortedSet set = new BufferedIntSortedSet(new int[] { 1, 2, 3 }, executor, 1);
+		assertTrue(set.add(4));
+		assertTrue(set.contains(4));
+		assertEquals(1, set.bufferedKeys());
+		assertTrue(set.add(5));
+		assertEquals(1, calls[1]);
+		assertEquals(0, set.bufferedKeys());
+		assertEquals("[1, 2, 3, 4, 5]", set.toString());
+	}
+
+	@Test
+	/**
+	 * Writes that reach the threshold while a merge runs cannot schedule another, so the merge must, once it finishes.
+	 */
+	public void testWritesDuringMerge() throws Exception {
+		final List<Runnable> tasks = new ArrayList<Runnable>();
+		Executor executor = new Executor() {
+			@Override
+			public synchronized void execute(Runnable command) {
+				tasks.add(command);
+			}
+		};
+		BufferedIntSortedSet set = new BufferedIntSortedSet(new int[] { 1, 2, 3 }, executor, 2);
+		set.add(4);
+		set.add(5);
+		assertEquals(1, tasks.size());
+		Thread merger = new Thread(tasks.get(0));
+		// The merge builds its base, then blocks on the set's lock to swap it in
+		synchronized (set) {
+			merger.start();
+			while (merger.getState() != Thread.State.BLOCKED) {
+				Thread.sleep(1);
+			}
+			set.add(6);
+			set.add(7);
+		}
+		merger.join();
+		assertEquals(2, set.bufferedKeys());
+		assertEquals(2, tasks.size());
+		tasks.get(1).run();
+		assertEquals(0, set.bufferedKeys());
+		assertEquals("[1, 2, 3, 4, 5, 6, 7]", set.toString());
+	}
+
+}
@@ -0,0 +1,181 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class TestIntSortedSet {
+
+	@Test
+	/**
+	 * Both layouts, against a TreeSet of the same values.
+	 */
+	public void testAgainstTreeSet() throws Exception {
+		Random random = new Random(42);
+		for (int size = 0; size <= 20000; size = (int) (size * 1.5 + 1)) {
+			int values[] = new int[size];
+			TreeSet<Integer> expected = new TreeSet<>();
+			for (int i = 0; i < size; i++) {
+				values[i] = random.nextInt(size * 2 + 1) - size;
+				expected.add(values[i]);
+			}
+			for (int maxArraySize : new int[] { 0, 16, IntSortedSet.MAX_ARRAY_SIZE }) {
+				IntSortedSet set = IntSortedSet.of(values, maxArraySize);
+				assertEquals(expected.size() > maxArraySize, set.isBlocked());
+				check(expected, set, random);
+			}
+		}
+	}
+
+	private static void check(TreeSet<Integer> expected, IntSortedSet set, Random random) {
+		assertEquals(expected.size(), set.size());
+		int position = 0;
+		for (int element : expected) {
+			assertEquals(element, set.select(position));
+			assertEquals(position, set.rank(element));
+			position++;
+		}
+		int bound = expected.size() + 2;
+		IntSortedSet.Cursor cursor = set.cursor();
+		for (int i = 0; i < 200; i++) {
+			int key = random.nextInt(bound * 2 + 1) - bound;
+			assertEquals(expected.contains(key), set.contains(key));
+			assertEquals(expected.headSet(key).size(), set.rank(key));
+			Integer floor = expected.floor(key);
+			Integer ceiling = expected.ceiling(key);
+			if (floor != null) {
+				assertEquals(floor.intValue(), set.floor(key));
+			}
+			if (ceiling != null) {
+				assertEquals(ceiling.intValue(), set.ceiling(key));
+			}
+			int high = key + random.nextInt(20) - 5;
+			if (high < key) {
+				assertEquals(0, set.countInRange(key, high));
+				cursor.range(key, high);
+				assertFalse(cursor.hasNext());
+				continue;
+			}
+			assertEquals(expected.subSet(key, true, high, true).size(), set.countInRange(key, high));
+			cursor.range(key, high);
+			assertEquals(expected.subSet(key, true, high, true).size(), cursor.remaining());
+			for (int element : expected.subSet(key, true, high, true)) {
+				assertTrue(cursor.hasNext());
+				assertEquals(element, cursor.next());
+			}
+			assertFalse(cursor.hasNext());
+		}
+	}
+
+	@Test
+	public void testExtremes() throws Exception {
+		IntSortedSet set = new IntSortedSet(Integer.MAX_VALUE, Integer.MIN_VALUE, 0, 0, Integer.MAX_VALUE);
+		assertArrayEquals(new int[] { Integer.MIN_VALUE, 0, Integer.MAX_VALUE }, set.toArray());
+		assertEquals(Integer.MIN_VALUE, set.first());
+		assertEquals(Integer.MAX_VALUE, set.last());
+		assertEquals(Integer.MAX_VALUE, set.floor(Integer.MAX_VALUE));
+		assertEquals(Integer.MIN_VALUE, set.ceiling(Integer.MIN_VALUE));
+		assertEquals(3, set.countInRange(Integer.MIN_VALUE, Integer.MAX_VALUE));
+		IntSortedSet.Cursor cursor = set.cursor();
+		assertEquals(3, cursor.remaining());
+		assertEquals(Integer.MIN_VALUE, cursor.next());
+		cursor.range(1, Integer.MAX_VALUE);
+		assertEquals(Integer.MAX_VALUE, cursor.next());
+		try {
+			cursor.next();
+			fail();
+		} catch (NoSuchElementException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testEmpty() throws Exception {
+		IntSortedSet set = new IntSortedSet();
+		assertTrue(set.isEmpty());
+		assertFalse(set.contains(0));
+		assertFalse(set.cursor().hasNext());
+		try {
+			set.first();
+			fail();
+		} catch (NoSuchElementException e) {
+			// expected
+		}
+		try {
+			set.floor(0);
+			fail();
+		} catch (NoSuchElementException e) {
+			// expected
+		}
+		try {
+			set.ceiling(0);
+			fail();
+		} catch (NoSuchElementException e) {
+			// expected
+		}
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testSelectOutOfRange() throws Exception {
+		new IntSortedSet(1, 2, 3).select(3);
+	}
+
+	@Test
+	public void testEquality() throws Exception {
+		int values[] = new int[10000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = values.length - i;
+		}
+		IntSortedSet blocked = new IntSortedSet(values);
+		IntSortedSet array = IntSortedSet.of(values, Integer.MAX_VALUE);
+		assertTrue(blocked.isBlocked());
+		assertEquals(blocked, array);
+		assertEquals(blocked.hashCode(), array.hashCode());
+		assertFalse(blocked.equals(new IntSortedSet(1, 2, 3)));
+		assertEquals("[1, 2, 3]", new IntSortedSet(3, 2, 1).toString());
+	}
+
+	@Test
+	/**
+	 * Sorted, unique values are taken as they are, in either layout.
+	 */
+	public void testSortedConstructor() throws Exception {
+		int sorted[] = new int[10000];
+		for (int i = 0; i < sorted.length; i++) {
+			sorted[i] = i * 3;
+		}
+		IntSortedSet blocked = IntSortedSet.ofSortedUnique(sorted, IntSortedSet.MAX_ARRAY_SIZE);
+		IntSortedSet array = IntSortedSet.ofSortedUnique(sorted, Integer.MAX_VALUE);
+		assertTrue(blocked.isBlocked());
+		assertFalse(array.isBlocked());
+		assertEquals(new IntSortedSet(sorted), blocked);
+		assertEquals(blocked, array);
+		assertEquals(sorted.length, array.size());
+		assertEquals(1234, array.rank(1234 * 3));
+	}
+
+}
@@ -0,0 +1,177 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class TestLongBPlusTree {
+
+	@Test
+	/**
+	 * Random adds and removes, against a TreeSet, growing the tree to several levels and shrinking it again.
+	 */
+	public void testAgainstTreeSet() throws Exception {
+		Random random = new Random(42);
+		LongBPlusTree tree = new LongBPlusTree();
+		TreeSet<Long> expected = new TreeSet<>();
+		for (int phase = 0; phase < 4; phase++) {
+			// Grow in even phases, shrink in odd ones
+			int bias = phase % 2 == 0 ? 7 : 3;
+			for (int i = 0; i < 60000; i++) {
+				long key = random.nextInt(50000) * 3L;
+				if (random.nextInt(10) < bias) {
+					assertEquals(expected.add(key), tree.add(key));
+				}
+				else {
+					assertEquals(expected.remove(key), tree.remove(key));
+				}
+				assertEquals(expected.size(), tree.size());
+				if (i % 5000 == 0) {
+					tree.checkInvariants();
+					check(expected, tree, random);
+				}
+			}
+			tree.checkInvariants();
+			check(expected, tree, random);
+		}
+		assertTrue(tree.height() > 1);
+		for (long key : expected) {
+			assertTrue(tree.remove(key));
+		}
+		tree.checkInvariants();
+		assertTrue(tree.isEmpty());
+		assertEquals(1, tree.height());
+	}
+
+	private static void check(TreeSet<Long> expected, LongBPlusTree tree, Random random) {
+		long[] keys = new long[expected.size()];
+		int i = 0;
+		for (long key : expected) {
+			keys[i++] = key;
+		}
+		assertArrayEquals(keys, tree.toArray());
+		LongBPlusTree.Cursor cursor = tree.cursor();
+		for (int j = 0; j < 200; j++) {
+			long key = random.nextInt(150010) - 5;
+			assertEquals(expected.contains(key), tree.contains(key));
+			Long floor = expected.floor(key);
+			Long ceiling = expected.ceiling(key);
+			if (floor != null) {
+				assertEquals(floor.longValue(), tree.floor(key));
+			}
+			if (ceiling != null) {
+				assertEquals(ceiling.longValue(), tree.ceiling(key));
+			}
+			long high = key + random.nextInt(300) - 10;
+			cursor.range(key, high);
+			if (high >= key) {
+				for (long element : expected.subSet(key, true, high, true)) {
+					assertTrue(cursor.hasNext());
+					assertEquals(element, cursor.next());
+				}
+			}
+			assertFalse(cursor.hasNext());
+		}
+	}
+
+	@Test
+	/**
+	 * Ascending and descending runs split and merge at the edges of the tree only.
+	 */
+	public void testSequential() throws Exception {
+		LongBPlusTree tree = new LongBPlusTree();
+		for (long key = 0; key < 100000; key++) {
+			assertTrue(tree.add(key));
+		}
+		tree.checkInvariants();
+		for (long key = 0; key < 100000; key += 2) {
+			assertTrue(tree.remove(key));
+		}
+		tree.checkInvariants();
+		for (long key = 99999; key >= 0; key -= 2) {
+			assertTrue(tree.remove(key));
+		}
+		tree.checkInvariants();
+		assertEquals(0, tree.size());
+		for (long key = 100000; key > 0; key--) {
+			assertTrue(tree.add(key));
+		}
+		tree.checkInvariants();
+		assertEquals(1, tree.first());
+		assertEquals(100000, tree.last());
+	}
+
+	@Test
+	public void testExtremes() throws Exception {
+		LongBPlusTree tree = new LongBPlusTree();
+		assertTrue(tree.add(Long.MAX_VALUE));
+		assertTrue(tree.add(Long.MIN_VALUE));
+		assertTrue(tree.add(0));
+		assertFalse(tree.add(0));
+		assertEquals(Long.MIN_VALUE, tree.floor(Long.MIN_VALUE));
+		assertEquals(Long.MAX_VALUE, tree.ceiling(1));
+		assertEquals(Long.MAX_VALUE, tree.floor(Long.MAX_VALUE));
+		LongBPlusTree.Cursor cursor = tree.cursor();
+		assertEquals(Long.MIN_VALUE, cursor.next());
+		assertEquals(0, cursor.next());
+		assertEquals(Long.MAX_VALUE, cursor.next());
+		assertFalse(cursor.hasNext());
+		assertEquals("[" + Long.MIN_VALUE + ", 0, " + Long.MAX_VALUE + "]", tree.toString());
+	}
+
+	@Test
+	public void testEmpty() throws Exception {
+		LongBPlusTree tree = new LongBPlusTree();
+		assertFalse(tree.contains(0));
+		assertFalse(tree.remove(0));
+		assertFalse(tree.cursor().hasNext());
+		try {
+			tree.first();
+			fail();
+		} catch (NoSuchElementException e) {
+			// expected
+		}
+		try {
+			tree.floor(0);
+			fail();
+		} catch (NoSuchElementException e) {
+			// expected
+		}
+		try {
+			tree.ceiling(0);
+			fail();
+		} catch (NoSuchElementException e) {
+			// expected
+		}
+		tree.add(1);
+		tree.clear();
+		assertTrue(tree.isEmpty());
+		assertFalse(tree.contains(1));
+		tree.checkInvariants();
+	}
+
+}
@@ -0,0 +1,165 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class TestLongSortedSet {
+
+	// Spreads the values of testAgainstTreeSet beyond the range of an int
+	private static final long STEP = 1L << 32;
+
+	@Test
+	/**
+	 * Both layouts, against a TreeSet of the same values.
+	 */
+	public void testAgainstTreeSet() throws Exception {
+		Random random = new Random(42);
+		for (int size = 0; size <= 20000; size = (int) (size * 1.5 + 1)) {
+			long values[] = new long[size];
+			TreeSet<Long> expected = new TreeSet<>();
+			for (int i = 0; i < size; i++) {
+				values[i] = (random.nextInt(size * 2 + 1) - size) * STEP;
+				expected.add(values[i]);
+			}
+			for (int maxArraySize : new int[] { 0, 16, LongSortedSet.MAX_ARRAY_SIZE }) {
+				LongSortedSet set = new LongSortedSet(values, maxArraySize);
+				assertEquals(expected.size() > maxArraySize, set.isBlocked());
+				check(expected, set, random);
+			}
+		}
+	}
+
+	private static void check(TreeSet<Long> expected, LongSortedSet set, Random random) {
+		assertEquals(expected.size(), set.size());
+		int position = 0;
+		for (long element : expected) {
+			assertEquals(element, set.select(position));
+			assertEquals(position, set.rank(element));
+			position++;
+		}
+		int bound = expected.size() + 2;
+		LongSortedSet.Cursor cursor = set.cursor();
+		for (int i = 0; i < 200; i++) {
+			long key = (random.nextInt(bound * 2 + 1) - bound) * STEP;
+			assertEquals(expected.contains(key), set.contains(key));
+			assertEquals(expected.headSet(key).size(), set.rank(key));
+			Long floor = expected.floor(key);
+			Long ceiling = expected.ceiling(key);
+			if (floor != null) {
+				assertEquals(floor.longValue(), set.floor(key));
+			}
+			if (ceiling != null) {
+				assertEquals(ceiling.longValue(), set.ceiling(key));
+			}
+			long high = key + (random.nextInt(20) - 5) * STEP;
+			if (high < key) {
+				assertEquals(0, set.countInRange(key, high));
+				cursor.range(key, high);
+				assertFalse(cursor.hasNext());
+				continue;
+			}
+			assertEquals(expected.subSet(key, true, high, true).size(), set.countInRange(key, high));
+			cursor.range(key, high);
+			assertEquals(expected.subSet(key, true, high, true).size(), cursor.remaining());
+			for (long element : expected.subSet(key, true, high, true)) {
+				assertTrue(cursor.hasNext());
+				assertEquals(element, cursor.next());
+			}
+			assertFalse(cursor.hasNext());
+		}
+	}
+
+	@Test
+	public void testExtremes() throws Exception {
+		LongSortedSet set = new LongSortedSet(Long.MAX_VALUE, Long.MIN_VALUE, 0, 0, Long.MAX_VALUE);
+		assertArrayEquals(new long[] { Long.MIN_VALUE, 0, Long.MAX_VALUE }, set.toArray());
+		assertEquals(Long.MIN_VALUE, set.first());
+		assertEquals(Long.MAX_VALUE, set.last());
+		assertEquals(Long.MAX_VALUE, set.floor(Long.MAX_VALUE));
+		assertEquals(Long.MIN_VALUE, set.ceiling(Long.MIN_VALUE));
+		assertEquals(3, set.countInRange(Long.MIN_VALUE, Long.MAX_VALUE));
+		LongSortedSet.Cursor cursor = set.cursor();
+		assertEquals(3, cursor.remaining());
+		assertEquals(Long.MIN_VALUE, cursor.next());
+		cursor.range(1, Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, cursor.next());
+		try {
+			cursor.next();
+			fail();
+		} catch (NoSuchElementException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testEmpty() throws Exception {
+		LongSortedSet set = new LongSortedSet();
+		assertTrue(set.isEmpty());
+		assertFalse(set.contains(0));
+		assertFalse(set.cursor().hasNext());
+		try {
+			set.first();
+			fail();
+		} catch (NoSuchElementException e) {
+			// expected
+		}
+		try {
+			set.floor(0);
+			fail();
+		} catch (NoSuchElementException e) {
+			// expected
+		}
+		try {
+			set.ceiling(0);
+			fail();
+		} catch (NoSuchElementException e) {
+			// expected
+		}
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testSelectOutOfRange() throws Exception {
+		new LongSortedSet(1, 2, 3).select(3);
+	}
+
+	@Test
+	public void testEquality() throws Exception {
+		long values[] = new long[10000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = values.length - i;
+		}
+		LongSortedSet blocked = new LongSortedSet(values);
+		LongSortedSet array = new LongSortedSet(values, Integer.MAX_VALUE);
+		assertTrue(blocked.isBlocked());
+		assertEquals(blocked, array);
+		assertEquals(blocked.hashCode(), array.hashCode());
+		assertFalse(blocked.equals(new LongSortedSet(1, 2, 3)));
+		assertEquals("[1, 2, 3]", new LongSortedSet(3, 2, 1).toString());
+	}
+
+}
@@ -0,0 +1,146 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased.evolve;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * An island-model genetic algorithm run. Each island evolves its own population for an epoch, the islands evolving in
+ * parallel, and then the most fit individuals of each island migrate to the next island around a ring. The islands
+ * are seeded from a single seed and migration happens only between epochs, so a run is reproducible for a given seed
+ * and number of islands, however many threads run the islands. A run can be checkpointed between epochs, and resumed
+ * exactly.
+ */
+public class Evolution {
+
+	static final int GENERATIONS_PER_EPOCH = 5;
+	private static final int MIGRANTS = 10;
+
+	/**
+	 * The state of a run between epochs.
+	 */
+	public static class Checkpoint implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		// Whatever identifies the fitness function, so a run is not resumed against a different one
+		final String configuration;
+		final int epoch;
+		final Random[] randoms;
+		final int[][] populations;
+
+		Checkpoint(String configuration, int epoch, Random[] randoms, int[][] populations) {
+			this.configuration = configuration;
+			this.epoch = epoch;
+			this.randoms = randoms;
+			this.populations = populations;
+		}
+	}
+
+	private final List<Island> islands = new ArrayList<Island>();
+	private int epoch;
+
+	public Evolution(Fitness fitness, long seed, int numberOfIslands) {
+		Random seeds = new Random(seed);
+		for (int i = 0; i < numberOfIslands; i++) {
+			islands.add(new Island(seeds.nextLong(), fitness));
+		}
+	}
+
+	public Evolution(Fitness fitness, String configuration, Checkpoint checkpoint) {
+		if (!checkpoint.configuration.equals(configuration)) {
+			throw new IllegalArgumentException("The checkpoint is of a run with a different configuration: "
+					+ checkpoint.configuration);
+		}
+		for (int i = 0; i < checkpoint.populations.length; i++) {
+			islands.add(new Island(checkpoint.randoms[i], checkpoint.populations[i], fitness));
+		}
+		this.epoch = checkpoint.epoch;
+	}
+
+	/**
+	 * @return the number of epochs completed
+	 */
+	public int epoch() {
+		return epoch;
+	}
+
+	public void evolveEpoch(ExecutorService executor) throws InterruptedException, ExecutionException {
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (final Island island : islands) {
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					island.evolve(GENERATIONS_PER_EPOCH);
+					return null;
+				}
+			});
+		}
+		for (Future<Void> future : executor.invokeAll(tasks)) {
+			future.get();
+		}
+		migrate();
+		epoch++;
+	}
+
+	/**
+	 * Every island sends copies of its most fit individuals to the next island around the ring. All of the emigrants
+	 * are chosen before any arrive, so the result does not depend on the order of the islands.
+	 */
+	private void migrate() {
+		List<List<Individual>> emigrants = new ArrayList<List<Individual>>();
+		for (Island island : islands) {
+			emigrants.add(island.emigrants(MIGRANTS));
+		}
+		for (int i = 0; i < islands.size(); i++) {
+			islands.get((i + 1) % islands.size()).immigrate(emigrants.get(i));
+		}
+	}
+
+	/**
+	 * @return the most fit individual of all the islands. Ties go to the lowest numbered island.
+	 */
+	public Individual champion() {
+		Individual champion = null;
+		for (Island island : islands) {
+			if (champion == null || island.best().utility > champion.utility) {
+				champion = island.best();
+			}
+		}
+		return champion;
+	}
+
+	/**
+	 * The checkpoint shares the islands' Randoms, so it must be written out before the next epoch.
+	 */
+	public Checkpoint checkpoint(String configuration) {
+		Random[] randoms = new Random[islands.size()];
+		int[][] populations = new int[islands.size()][];
+		for (int i = 0; i < islands.size(); i++) {
+			randoms[i] = islands.get(i).random();
+			populations[i] = islands.get(i).values();
+		}
+		return new Checkpoint(configuration, epoch, randoms, populations);
+	}
+}
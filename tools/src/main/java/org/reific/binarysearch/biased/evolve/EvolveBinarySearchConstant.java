@@ -0,0 +1,152 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased.evolve;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Evolves the constant used in BiasedBinarySearch (see {@link Evolution}), printing each new most-fit individual.
+ * {@link TuneConstants} runs the same algorithm from a configuration file, to a budget, and writes a constants table.
+ * <p>
+ * Arguments (all optional): seed (default 5), number of islands (default 8), number of epochs (default 0, meaning run
+ * until killed), fitness function: proxy (the default, {@link ProxyFitness} over the specs below) or simulated
+ * ({@link SimulatedFitness} of an i7-4790K with PLRU replacement).
+ */
+public class EvolveBinarySearchConstant {
+	public static void main(String[] args) throws Exception {
+
+		long seed = args.length > 0 ? Long.parseLong(args[0]) : 5;
+		int numberOfIslands = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		int epochs = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+		String fitnessName = args.length > 3 ? args[3] : "proxy";
+
+		ArrayList<Spec> specs = new ArrayList<Spec>();
+
+		specs.add(Spec
+				.of("TLB - 4k Pages, 4-way, 64 entries (e.g. x86 i7-4790K Level 1)")
+				.numberOfSets(16)
+				.blockSizeInBytes(4 * 1024)
+				.ways(4)
+				.minArraySizeInBytes(512 * 1024)
+				.build());
+		specs.add(Spec
+				.of("TLB - 64k Pages, 4-way, 512 entries (e.g Power7)")
+				.numberOfSets(128)
+				.blockSizeInBytes(64 * 1024)
+				.ways(4)
+				.minArraySizeInBytes(64 * 1024 * 1024)
+				.build());
+		specs.add(Spec
+				.of("TLB - 2M Pages, 4-way, 32 entries (e.g. x86 i7-4790K Level 1)")
+				.numberOfSets(8)
+				.blockSizeInBytes(2 * 1024 * 1024)
+				.ways(4)
+				.minArraySizeInBytes(128 * 1024 * 1024)
+				.build());
+		specs.add(Spec
+				.of("32k L1 Cache, 8-way, 64 byte cachelines (e.g. x86 i7-4790K)")
+				.numberOfSets(64)
+				.blockSizeInBytes(64)
+				.ways(8)
+				.minArraySizeInBytes(64 * 1024)
+				.build());
+		specs.add(Spec
+				.of("16k L1 Cache, 4-way, 32 byte cachelines (e.g. Sparc T5,M5,M6)")
+				.numberOfSets(128)
+				.blockSizeInBytes(32)
+				.ways(4)
+				.minArraySizeInBytes(32 * 1024)
+				.build());
+		specs.add(Spec
+				.of("32k L1 Cache, 8-way, 128 byte cachelines (e.g. Power7)")
+				.numberOfSets(32)
+				.blockSizeInBytes(128)
+				.ways(8)
+				.minArraySizeInBytes(64 * 1024)
+				.build());
+		specs.add(Spec
+				.of("256k L2 Cache, 8-way, 64 byte cachelines (e.g. x86 i7-4790K)")
+				.numberOfSets(512)
+				.blockSizeInBytes(64)
+				.ways(8)
+				.minArraySizeInBytes(512 * 1024)
+				.build());
+		//		specs.add(Spec.of("8M L3 Cache, 16-way, 64 byte cachelines (e.g. x86 i7-4790K)")
+		//				.numberOfSets(8192)
+		//				.blockSizeInBytes(64)
+		//				.ways(16)
+		//				.minArraySizeInBytes(16 * 1024 * 1024)
+		//				.build());
+
+		Fitness fitness;
+		if (fitnessName.equals("proxy")) {
+			fitness = new ProxyFitness(specs);
+		}
+		else if (fitnessName.equals("simulated")) {
+			fitness = new SimulatedFitness(MemoryHierarchy.haswell(ReplacementPolicy.PLRU), 64 * 1024, 1 << 30, 256);
+		}
+		else {
+			throw new IllegalArgumentException("Unknown fitness function: " + fitnessName);
+		}
+
+		Evolution evolution = new Evolution(fitness, seed, numberOfIslands);
+		System.out.println("Initial populations created");
+
+		ExecutorService executor = Executors.newFixedThreadPool(
+				Math.min(numberOfIslands, Runtime.getRuntime().availableProcessors()));
+		try {
+			float best = 0;
+			while (epochs == 0 || evolution.epoch() < epochs) {
+				evolution.evolveEpoch(executor);
+
+				// Print when a new most-fit individual is found
+				Individual champion = evolution.champion();
+				if (champion.utility > best) {
+					best = champion.utility;
+					System.out.printf("Epoch %d\n", evolution.epoch());
+					print(champion);
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * format bits in an integer as a readable string of bits (with spaces every 8 bits)
+	 */
+	private static String formatBits(int x) {
+		String bits = String.format("%32s", Integer.toBinaryString(x)).replace(' ', '0');
+		return bits.substring(0, 8) + " " + bits.substring(8, 16) + " " + bits.substring(16, 24) + " "
+				+ bits.substring(24, 32);
+	}
+
+	static void print(Individual individual) {
+		SpecResult[] utilities = individual.utilities();
+
+		System.out.printf("Candidate: %12.12s (%s), Utility: %4.4f\n", individual.value, formatBits(individual.value),
+				individual.utility);
+
+		for (SpecResult specResult : utilities) {
+			System.out.printf("  (%7.4f) %s\n", specResult.utility, specResult.spec.description);
+		}
+		System.out.println();
+	}
+
+}
@@ -0,0 +1,359 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased.evolve;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Evaluates every candidate constant in a range (by default all 2^28 of them) for the specs in a configuration file
+ * (see {@link TuningConfig}), and writes the best K, ranked, one "rank value utility" line each. Where the genetic
+ * algorithm of {@link TuneConstants} finds a good constant, this finds the best one, at the cost of a great deal more
+ * time.
+ * <p>
+ * The range is split across a ForkJoinPool. Once K candidates have been seen, evaluating another stops as soon as it
+ * is certain to score below the K-th best so far (see {@link Fitness#computeUnlessBelow(int, float)}), which is most
+ * candidates. Only candidates strictly below are dropped, and ties are broken by the smaller value, so the ranking
+ * does not depend on the order of evaluation or the number of threads.
+ * <p>
+ * A large search can be split into ranges, run separately, and the rankings merged. Each ranking file records the
+ * ranges it covers, and the configuration it was ranked under; a merge rejects rankings of any other configuration.
+ * When they cover the whole space (in one run, or by merging), the best constant is also written to the constants
+ * table named in the configuration. Otherwise only the ranking is written, since its best is only the
+ * best of part of the space.
+ * <p>
+ * Usage: ExhaustiveSearch config.properties K ranking.txt [from to]
+ * <br>
+ * Usage: ExhaustiveSearch --merge config.properties K ranking.txt ranking1.txt ranking2.txt ...
+ */
+public class ExhaustiveSearch {
+
+	// Candidates evaluated by one task, few enough to balance well and many enough to make the splitting cheap
+	private static final int LEAF_SIZE = 4096;
+
+	// Candidates between progress reports
+	private static final long PROGRESS_INTERVAL = 1 << 20;
+
+	public static void main(String[] args) throws Exception {
+		if (args.length >= 4 && args[0].equals("--merge")) {
+			TuningConfig config = TuningConfig.load(args[1]);
+			Ranking ranking = new Ranking(Integer.parseInt(args[2]), config.fingerprint);
+			for (int i = 4; i < args.length; i++) {
+				ranking.read(new File(args[i]));
+			}
+			finish(config, ranking, new File(args[3]), "merged from " + (args.length - 4) + " rankings");
+		}
+		else if (args.length == 3 || args.length == 5) {
+			TuningConfig config = TuningConfig.load(args[0]);
+			int from = args.length == 5 ? Integer.decode(args[3]) : 0;
+			int to = args.length == 5 ? Integer.decode(args[4]) : Fitness.NUMBER_OF_CANDIDATES;
+			long start = System.nanoTime();
+			Ranking ranking = search(config.fitness, config.fingerprint, from, to, Integer.parseInt(args[1]), true);
+			System.out.printf("Searched [%d, %d) in %d seconds%n", from, to, (System.nanoTime() - start) / 1000000000L);
+			finish(config, ranking, new File(args[2]), "by exhaustive search");
+		}
+		else {
+			System.err.println("Usage: ExhaustiveSearch config.properties K ranking.txt [from to]");
+			System.err.println("       ExhaustiveSearch --merge config.properties K ranking.txt rankings...");
+			System.exit(2);
+		}
+	}
+
+	private static void finish(TuningConfig config, Ranking ranking, File file, String provenance) throws IOException {
+		ranking.write(file);
+		List<Ranking.Entry> entries = ranking.entries();
+		if (!ranking.coversAll()) {
+			System.out.printf("Wrote %s, which does not cover every candidate, so %s is unchanged%n", file,
+					config.output);
+			return;
+		}
+		if (entries.isEmpty()) {
+			return;
+		}
+		Ranking.Entry best = entries.get(0);
+		TuneConstants.writeTable(new File(config.output), config.geometry, best.value,
+				provenance + ", utility " + best.utility);
+		System.out.printf("Wrote %s=%d to %s%n", config.geometry, best.value, config.output);
+	}
+
+	/**
+	 * @return the best k candidates in [from, to), for the configuration with the given fingerprint
+	 */
+	static Ranking search(Fitness fitness, String fingerprint, int from, int to, int k, boolean reportProgress) {
+		if (from < 0 || from > to || to > Fitness.NUMBER_OF_CANDIDATES || k <= 0) {
+			throw new IllegalArgumentException("Bad range [" + from + ", " + to + ") or k(" + k + ")");
+		}
+		Ranking ranking = new Ranking(k, fingerprint);
+		Progress progress = reportProgress ? new Progress(to - from) : null;
+		ForkJoinPool pool = new ForkJoinPool();
+		try {
+			pool.invoke(new Search(fitness, ranking, progress, from, to));
+		} finally {
+			pool.shutdown();
+		}
+		ranking.searched(from, to);
+		return ranking;
+	}
+
+	private static class Search extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Fitness fitness;
+		private final Ranking ranking;
+		private final Progress progress;
+		private final int from;
+		private final int to;
+
+		Search(Fitness fitness, Ranking ranking, Progress progress, int from, int to) {
+			this.fitness = fitness;
+			this.ranking = ranking;
+			this.progress = progress;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > LEAF_SIZE) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Search(fitness, ranking, progress, from, middle),
+						new Search(fitness, ranking, progress, middle, to));
+				return;
+			}
+			for (int candidate = from; candidate < to; candidate++) {
+				float utility = fitness.computeUnlessBelow(candidate, ranking.threshold());
+				ranking.offer(candidate, utility);
+			}
+			if (progress != null) {
+				progress.done(to - from, ranking);
+			}
+		}
+	}
+
+	private static class Progress {
+
+		private final long total;
+		private final long start = System.nanoTime();
+		private final AtomicLong done = new AtomicLong();
+
+		Progress(long total) {
+			this.total = total;
+		}
+
+		void done(int count, Ranking ranking) {
+			long after = done.addAndGet(count);
+			if (after / PROGRESS_INTERVAL != (after - count) / PROGRESS_INTERVAL) {
+				long seconds = (System.nanoTime() - start) / 1000000000L;
+				System.out.printf("%d of %d candidates (%.2f%%) in %d seconds, threshold %s%n", after, total,
+						100.0 * after / total, seconds, ranking.threshold());
+			}
+		}
+	}
+
+	/**
+	 * The best k candidates offered so far, by utility, and then by smaller value, and the ranges of candidates they
+	 * were chosen from, for one configuration (identified by {@link TuningConfig#fingerprint}).
+	 */
+	static class Ranking {
+
+		static class Entry {
+			final int value;
+			final float utility;
+
+			Entry(int value, float utility) {
+				this.value = value;
+				this.utility = utility;
+			}
+		}
+
+		// Best first
+		private static final Comparator<Entry> ORDER = new Comparator<Entry>() {
+			@Override
+			public int compare(Entry a, Entry b) {
+				int byUtility = Float.compare(b.utility, a.utility);
+				return byUtility != 0 ? byUtility : Integer.compare(a.value, b.value);
+			}
+		};
+
+		// Marks the lines of a ranking file recording a range searched
+		private static final String SEARCHED = "# searched";
+		// Marks the lines of a ranking file recording the configuration, one line of its fingerprint each
+		private static final String CONFIG = "# config";
+
+		private final int k;
+		private final String fingerprint;
+		// The worst of the best at the head, so it can be replaced
+		private final PriorityQueue<Entry> heap;
+		// The utility of the k-th best so far, below which a candidate cannot make the ranking
+		private volatile float threshold = Float.NEGATIVE_INFINITY;
+		// The ranges [from, to) searched, each as { from, to }
+		private final List<int[]> searched = new ArrayList<int[]>();
+
+		Ranking(int k, String fingerprint) {
+			this.k = k;
+			this.fingerprint = fingerprint;
+			this.heap = new PriorityQueue<Entry>(k, Collections.reverseOrder(ORDER));
+		}
+
+		float threshold() {
+			return threshold;
+		}
+
+		void offer(int value, float utility) {
+			// Most candidates are pruned, and need not take the lock
+			if (utility < threshold) {
+				return;
+			}
+			synchronized (this) {
+				Entry entry = new Entry(value, utility);
+				if (heap.size() < k) {
+					heap.add(entry);
+				}
+				else if (ORDER.compare(entry, heap.peek()) < 0) {
+					heap.poll();
+					heap.add(entry);
+				}
+				else {
+					return;
+				}
+				if (heap.size() == k) {
+					threshold = heap.peek().utility;
+				}
+			}
+		}
+
+		/**
+		 * Record that every candidate in [from, to) has been offered
+		 */
+		synchronized void searched(int from, int to) {
+			if (from < to) {
+				searched.add(new int[] { from, to });
+			}
+		}
+
+		/**
+		 * @return whether the ranges searched cover every candidate
+		 */
+		synchronized boolean coversAll() {
+			List<int[]> ranges = new ArrayList<int[]>(searched);
+			Collections.sort(ranges, new Comparator<int[]>() {
+				@Override
+				public int compare(int[] a, int[] b) {
+					return Integer.compare(a[0], b[0]);
+				}
+			});
+			int covered = 0;
+			for (int[] range : ranges) {
+				if (range[0] > covered) {
+					return false;
+				}
+				covered = Math.max(covered, range[1]);
+			}
+			return covered >= Fitness.NUMBER_OF_CANDIDATES;
+		}
+
+		/**
+		 * @return the ranking, best first
+		 */
+		synchronized List<Entry> entries() {
+			List<Entry> entries = new ArrayList<Entry>(heap);
+			Collections.sort(entries, ORDER);
+			return entries;
+		}
+
+		private synchronized List<int[]> searchedRanges() {
+			return new ArrayList<int[]>(searched);
+		}
+
+		void write(File file) throws IOException {
+			try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+				for (String line : fingerprint.split("\n")) {
+					if (!line.isEmpty()) {
+						writer.write(CONFIG + " " + line + "\n");
+					}
+				}
+				for (int[] range : searchedRanges()) {
+					writer.write(SEARCHED + " " + range[0] + " " + range[1] + "\n");
+				}
+				writer.write("# rank value utility\n");
+				int rank = 1;
+				for (Entry entry : entries()) {
+					writer.write(rank++ + " " + entry.value + " " + entry.utility + "\n");
+				}
+			}
+		}
+
+		/**
+		 * Offer every entry of a ranking written by {@link #write(File)}, and record the ranges it was chosen from
+		 * 
+		 * @throws IOException
+		 *             if it was ranked under a different configuration
+		 */
+		void read(File file) throws IOException {
+			StringBuilder config = new StringBuilder();
+			List<int[]> ranges = new ArrayList<int[]>();
+			List<Entry> entries = new ArrayList<Entry>();
+			try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+				for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+					line = line.trim();
+					if (line.startsWith(CONFIG + " ")) {
+						config.append(line.substring(CONFIG.length() + 1)).append('\n');
+						continue;
+					}
+					if (line.startsWith(SEARCHED + " ")) {
+						String[] fields = line.split("\\s+");
+						if (fields.length != 4) {
+							throw new IOException(file + ": bad line: " + line);
+						}
+						ranges.add(new int[] { Integer.parseInt(fields[2]), Integer.parseInt(fields[3]) });
+						continue;
+					}
+					if (line.isEmpty() || line.startsWith("#")) {
+						continue;
+					}
+					String[] fields = line.split("\\s+");
+					if (fields.length != 3) {
+						throw new IOException(file + ": bad line: " + line);
+					}
+					entries.add(new Entry(Integer.parseInt(fields[1]), Float.parseFloat(fields[2])));
+				}
+			}
+			if (!config.toString().equals(fingerprint)) {
+				throw new IOException(file + " was ranked under a different configuration:\n" + config);
+			}
+			for (int[] range : ranges) {
+				searched(range[0], range[1]);
+			}
+			for (Entry entry : entries) {
+				offer(entry.value, entry.utility);
+			}
+		}
+	}
+}
@@ -0,0 +1,158 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased.evolve;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A fitness function for candidate constants. Utilities are memoized, since the genetic algorithm revisits the same
+ * candidates many times. Candidates are 28 bit values (all crossovers and mutations keep them so).
+ * <p>
+ * The memo is a memory-mapped file of one int per candidate (a gigabyte, mostly sparse), outside the heap. With
+ * {@link #memoizeIn(File)} the file is named by a hash of the {@link #identity()} of the fitness function, so later
+ * runs, and concurrent runs in other processes, with the same specs reuse each other's evaluations. Otherwise it is a
+ * temporary file, deleted on exit.
+ */
+public abstract class Fitness {
+
+	static final int NUMBER_OF_CANDIDATES = 0x10000000;
+
+	// Part of the name of every memo file: change it when a change to the code changes any utility
+	private static final int MEMO_VERSION = 1;
+
+	private volatile File memoDirectory;
+	// Mapped on first use. Each entry is ~floatToIntBits(utility), so an untouched (zero) entry means not computed.
+	private volatile IntBuffer memo;
+
+	/**
+	 * @return the utility of candidate, higher being better
+	 */
+	public final float utility(int candidate) {
+		IntBuffer memo = memo();
+		int memoized = memo.get(candidate);
+		if (memoized != 0) {
+			return Float.intBitsToFloat(~memoized);
+		}
+		float utility = compute(candidate);
+		// Racing threads (and processes) compute the same value, so a lost update costs nothing
+		memo.put(candidate, ~Float.floatToIntBits(utility));
+		return utility;
+	}
+
+	/**
+	 * Keep the memo in a file in directory (created if need be), shared with every other fitness function of the same
+	 * identity. Only effective before the first call of {@link #utility(int)}.
+	 */
+	public void memoizeIn(File directory) {
+		memoDirectory = directory;
+	}
+
+	/**
+	 * @return the memo file this fitness function uses in directory
+	 */
+	File memoFile(File directory) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(
+					(MEMO_VERSION + "\n" + identity()).getBytes(StandardCharsets.UTF_8));
+			StringBuilder name = new StringBuilder("fitness-");
+			for (int i = 0; i < 8; i++) {
+				name.append(String.format("%02x", digest[i]));
+			}
+			return new File(directory, name.append(".memo").toString());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private IntBuffer memo() {
+		IntBuffer memo = this.memo;
+		if (memo == null) {
+			synchronized (this) {
+				memo = this.memo;
+				if (memo == null) {
+					memo = map();
+					this.memo = memo;
+				}
+			}
+		}
+		return memo;
+	}
+
+	private IntBuffer map() {
+		try {
+			File file;
+			File directory = memoDirectory;
+			if (directory != null) {
+				if (!directory.isDirectory() && !directory.mkdirs()) {
+					throw new IOException("Cannot create " + directory);
+				}
+				file = memoFile(directory);
+			}
+			else {
+				file = File.createTempFile("fitness", ".memo");
+				file.deleteOnExit();
+			}
+			long length = 4L * NUMBER_OF_CANDIDATES;
+			// The mapping outlives the channel
+			try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+				if (randomAccessFile.length() != length) {
+					if (randomAccessFile.length() != 0) {
+						throw new IOException(file + " is not a memo file (wrong length)");
+					}
+					// Sparse, and so all zero (not computed)
+					randomAccessFile.setLength(length);
+				}
+				// Little-endian whatever the platform, so files can be copied between machines
+				return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length)
+						.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @return a description of everything that determines {@link #compute(int)}, so that memo files of different
+	 *         fitness functions are never mixed up
+	 */
+	protected abstract String identity();
+
+	protected abstract float compute(int candidate);
+
+	/**
+	 * As {@link #compute(int)}, but may stop early, returning Float.NEGATIVE_INFINITY, once it is certain that the
+	 * utility is less than threshold. Otherwise the result is exactly that of compute. This implementation never stops
+	 * early.
+	 */
+	protected float computeUnlessBelow(int candidate, float threshold) {
+		return compute(candidate);
+	}
+
+	/**
+	 * @return the breakdown of the utility of candidate, for display
+	 */
+	public abstract SpecResult[] utilities(int candidate);
+}
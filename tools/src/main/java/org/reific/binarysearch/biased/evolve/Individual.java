@@ -0,0 +1,55 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased.evolve;
+
+public class Individual implements Comparable<Individual> {
+
+	public final float utility;
+	public final int value;
+	private SpecResult[] utilities;
+
+	private final Fitness fitness;
+
+	public Individual(int value, Fitness fitness) {
+		this.value = value;
+		this.fitness = fitness;
+		this.utility = fitness.utility(value);
+	}
+
+	public SpecResult[] utilities() {
+		if (utilities == null) {
+			utilities = fitness.utilities(value);
+		}
+		return utilities;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		Individual other = (Individual) obj;
+		return value == other.value;
+	}
+
+	@Override
+	public int hashCode() {
+		return Integer.hashCode(value);
+	}
+
+	@Override
+	public int compareTo(Individual o) {
+		return Float.compare(o.utility, utility);
+	}
+}
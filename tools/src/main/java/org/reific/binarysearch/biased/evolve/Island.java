@@ -0,0 +1,188 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased.evolve;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * One island of the island-model genetic algorithm: a population that evolves on its own, with its own source of
+ * randomness, and only exchanges individuals with other islands when told to migrate. An island is only ever used by
+ * one thread at a time, so nothing here is synchronized, and its evolution depends only on its seed and the
+ * immigrants it receives.
+ */
+public class Island {
+
+	final static int POPULATION_LIMIT = 1000;
+	private static final int INITIAL_POPULATION = 100;
+	private static final int OFFSPRING_PER_GENERATION = 100;
+	private static final int RANDOM_INDIVIDUALS_PER_GENERATION = 10;
+	private static final int HILL_CLIMBERS = 20;
+
+	private static final Crossover[] crossovers = Crossover.values();
+	private static final Mutater[] mutaters = Mutater.values();
+
+	private final Fitness fitness;
+	private final Random random;
+	// Sorted, most fit first, between generations
+	private final List<Individual> population = new ArrayList<Individual>();
+	// The values of population, replacing a linear scan of population for duplicates
+	private final Set<Integer> values = new HashSet<Integer>();
+
+	public Island(long seed, Fitness fitness) {
+		this.fitness = fitness;
+		this.random = new Random(seed);
+		for (int i = 0; i < INITIAL_POPULATION; i++) {
+			add(random.nextInt(1 << 28));
+		}
+		Collections.sort(population);
+	}
+
+	/**
+	 * Restore an island from a checkpoint (see {@link #random()} and {@link #values()}).
+	 */
+	public Island(Random random, int[] values, Fitness fitness) {
+		this.fitness = fitness;
+		this.random = random;
+		for (int value : values) {
+			add(value);
+		}
+		// Utilities are recomputed exactly, and the sort is stable, so this restores the original order
+		Collections.sort(population);
+	}
+
+	/**
+	 * pick a (biased) random individual from the population. The higher the eliteness parameter, the closer the individual
+	 * will be to the currently most fit individual.
+	 */
+	private Individual pickIndividual(int eliteness) {
+		float nextFloat = random.nextFloat();
+		int index = (int) (Math.pow(nextFloat, eliteness) * (Math.min(POPULATION_LIMIT, population.size())));
+		return population.get(index);
+	}
+
+	public void evolve(int generations) {
+		for (int generation = 0; generation < generations; generation++) {
+			breed();
+			groom();
+		}
+	}
+
+	/**
+	 * Add the offspring of (biased) random pairs of individuals, some of them mutated.
+	 */
+	private void breed() {
+		for (int i = 0; i < OFFSPRING_PER_GENERATION; i++) {
+			Individual a = pickIndividual(10);
+			Individual b = pickIndividual(5);
+
+			Crossover crossover = crossovers[random.nextInt(crossovers.length)];
+
+			int offspringValue = crossover.cross(a.value, b.value);
+
+			if (random.nextFloat() > 0.9) {
+				Mutater mutater = mutaters[random.nextInt(mutaters.length)];
+				offspringValue = mutater.mutate(offspringValue, random);
+			}
+
+			add(offspringValue);
+		}
+	}
+
+	/**
+	 * Sort and cull the population to POPULATION_LIMIT, add a handful of random new individuals and perform a greedy test
+	 * of the most fit individuals to see if any mutations would improve them (hill climb phase)
+	 */
+	private void groom() {
+		cull();
+
+		for (int i = 0; i < RANDOM_INDIVIDUALS_PER_GENERATION; i++) {
+			add(random.nextInt(1 << 28));
+		}
+
+		// Hill Climb
+		for (int i = 0; i < HILL_CLIMBERS && i < population.size(); i++) {
+			Individual individual = population.get(i);
+			for (Mutater mutater : mutaters) {
+				int mutated = mutater.mutate(individual.value, random);
+				if (!values.contains(mutated)) {
+					Individual individual2 = new Individual(mutated, fitness);
+					if (individual2.utility > individual.utility) {
+						population.add(individual2);
+						values.add(mutated);
+					}
+				}
+			}
+		}
+		Collections.sort(population);
+	}
+
+	private void cull() {
+		Collections.sort(population);
+		while (population.size() > POPULATION_LIMIT) {
+			values.remove(population.remove(population.size() - 1).value);
+		}
+	}
+
+	private void add(int value) {
+		if (values.add(value)) {
+			population.add(new Individual(value, fitness));
+		}
+	}
+
+	/**
+	 * @return the n most fit individuals, to migrate to another island
+	 */
+	public List<Individual> emigrants(int n) {
+		return new ArrayList<Individual>(population.subList(0, Math.min(n, population.size())));
+	}
+
+	public void immigrate(List<Individual> immigrants) {
+		for (Individual immigrant : immigrants) {
+			if (values.add(immigrant.value)) {
+				population.add(immigrant);
+			}
+		}
+		cull();
+	}
+
+	public Individual best() {
+		return population.get(0);
+	}
+
+	/**
+	 * @return the values of the population, most fit first
+	 */
+	public int[] values() {
+		int[] values = new int[population.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = population.get(i).value;
+		}
+		return values;
+	}
+
+	/**
+	 * @return the island's source of randomness, whose state must be saved with its population to resume it exactly
+	 */
+	public Random random() {
+		return random;
+	}
+}
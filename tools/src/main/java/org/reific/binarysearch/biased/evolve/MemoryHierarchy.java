@@ -0,0 +1,207 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased.evolve;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Simulates the data caches and data TLBs of a CPU together. An access goes to each cache level in turn until one
+ * hits, and likewise (independently) to each TLB level with the page number. Each level is charged its miss penalty
+ * for every miss, so {@link #cost()} approximates the cycles spent stalled on memory.
+ * <p>
+ * A hierarchy is not thread-safe. Use {@link #copy()} to get an independent (empty) one with the same configuration.
+ */
+public class MemoryHierarchy {
+
+	static class Level {
+		final Spec spec;
+		final ReplacementPolicy policy;
+		// Cycles lost on a miss at this level, over a hit
+		final float missPenalty;
+
+		Level(Spec spec, ReplacementPolicy policy, float missPenalty) {
+			this.spec = spec;
+			this.policy = policy;
+			this.missPenalty = missPenalty;
+		}
+
+		@Override
+		public String toString() {
+			return spec.numberOfSets + "x" + spec.blockSizeInBytes + "x" + spec.ways + " " + policy + " " + missPenalty;
+		}
+	}
+
+	static class MemoryHierarchyBuilder {
+
+		private final List<Level> caches = new ArrayList<Level>();
+		private final List<Level> tlbs = new ArrayList<Level>();
+
+		/**
+		 * Add the next (larger) cache level
+		 */
+		public MemoryHierarchyBuilder cache(Spec spec, ReplacementPolicy policy, float missPenalty) {
+			caches.add(new Level(spec, policy, missPenalty));
+			return this;
+		}
+
+		/**
+		 * Add the next TLB level (blockSizeInBytes is the page size)
+		 */
+		public MemoryHierarchyBuilder tlb(Spec spec, ReplacementPolicy policy, float missPenalty) {
+			tlbs.add(new Level(spec, policy, missPenalty));
+			return this;
+		}
+
+		public MemoryHierarchy build() {
+			if (caches.isEmpty() && tlbs.isEmpty()) {
+				throw new IllegalStateException("Builder not fully initialized");
+			}
+			return new MemoryHierarchy(caches, tlbs);
+		}
+	}
+
+	private final List<Level> caches;
+	private final List<Level> tlbs;
+	// The caches then the TLBs
+	private final SetAssociativeCache[] levels;
+	private final float[] missPenalties;
+	private final long[] misses;
+	private long accesses;
+
+	public static MemoryHierarchyBuilder builder() {
+		return new MemoryHierarchyBuilder();
+	}
+
+	private MemoryHierarchy(List<Level> caches, List<Level> tlbs) {
+		this.caches = Collections.unmodifiableList(new ArrayList<Level>(caches));
+		this.tlbs = Collections.unmodifiableList(new ArrayList<Level>(tlbs));
+		List<Level> all = new ArrayList<Level>(caches);
+		all.addAll(tlbs);
+		this.levels = new SetAssociativeCache[all.size()];
+		this.missPenalties = new float[all.size()];
+		for (int i = 0; i < levels.length; i++) {
+			levels[i] = new SetAssociativeCache(all.get(i).spec, all.get(i).policy);
+			missPenalties[i] = all.get(i).missPenalty;
+		}
+		this.misses = new long[levels.length];
+	}
+
+	public MemoryHierarchy copy() {
+		return new MemoryHierarchy(caches, tlbs);
+	}
+
+	/**
+	 * Empty every level and clear the counters.
+	 */
+	public void reset() {
+		for (SetAssociativeCache level : levels) {
+			level.reset();
+		}
+		resetCounters();
+	}
+
+	/**
+	 * Clear the counters but keep the contents of the caches (e.g. after warming them up).
+	 */
+	public void resetCounters() {
+		for (int i = 0; i < misses.length; i++) {
+			misses[i] = 0;
+		}
+		accesses = 0;
+	}
+
+	public void access(long address) {
+		accesses++;
+		int i = 0;
+		for (; i < caches.size(); i++) {
+			if (levels[i].access(address)) {
+				break;
+			}
+			misses[i]++;
+		}
+		for (i = caches.size(); i < levels.length; i++) {
+			if (levels[i].access(address)) {
+				break;
+			}
+			misses[i]++;
+		}
+	}
+
+	/**
+	 * @return the levels, caches first then TLBs, in the order of {@link #misses(int)}
+	 */
+	public Spec[] specs() {
+		Spec[] specs = new Spec[levels.length];
+		for (int i = 0; i < levels.length; i++) {
+			specs[i] = levels[i].spec;
+		}
+		return specs;
+	}
+
+	public long misses(int level) {
+		return misses[level];
+	}
+
+	public long accesses() {
+		return accesses;
+	}
+
+	/**
+	 * @return the total miss penalty since the counters were last reset
+	 */
+	public float cost() {
+		float cost = 0;
+		for (int i = 0; i < misses.length; i++) {
+			cost += misses[i] * missPenalties[i];
+		}
+		return cost;
+	}
+
+	@Override
+	public String toString() {
+		return "caches " + caches + " tlbs " + tlbs;
+	}
+
+	/**
+	 * The L1/L2/L3 caches and L1/L2 data TLBs of an i7-4790K (Haswell), with 4k pages. The penalties are the steps
+	 * between rough load latencies in cycles: L1 4, L2 12, L3 36, memory about 200; and for translation an STLB hit 8,
+	 * a page walk about 30.
+	 */
+	public static MemoryHierarchy haswell(ReplacementPolicy policy) {
+		return builder()
+				.cache(Spec.of("32k L1 Cache, 8-way, 64 byte cachelines (i7-4790K)")
+						.numberOfSets(64).blockSizeInBytes(64).ways(8).minArraySizeInBytes(64 * 1024).build(),
+						policy, 8)
+				.cache(Spec.of("256k L2 Cache, 8-way, 64 byte cachelines (i7-4790K)")
+						.numberOfSets(512).blockSizeInBytes(64).ways(8).minArraySizeInBytes(512 * 1024).build(),
+						policy, 24)
+				.cache(Spec.of("8M L3 Cache, 16-way, 64 byte cachelines (i7-4790K)")
+						.numberOfSets(8192).blockSizeInBytes(64).ways(16).minArraySizeInBytes(16 * 1024 * 1024)
+						.build(),
+						policy, 160)
+				.tlb(Spec.of("L1 DTLB - 4k Pages, 4-way, 64 entries (i7-4790K)")
+						.numberOfSets(16).blockSizeInBytes(4 * 1024).ways(4).minArraySizeInBytes(512 * 1024).build(),
+						policy, 8)
+				.tlb(Spec.of("STLB - 4k Pages, 8-way, 1024 entries (i7-4790K)")
+						.numberOfSets(128).blockSizeInBytes(4 * 1024).ways(8).minArraySizeInBytes(8 * 1024 * 1024)
+						.build(),
+						policy, 22)
+				.build();
+	}
+}
@@ -26,7 +26,7 @@ public enum Mutater {
 		/**
 		 * Flip one random bit.
 		 */
-		public int mutate(int value) {
+		public int mutate(int value, Random random) {
 			return value ^ (1 << (random.nextInt(28)));
 		}
 	},
@@ -36,7 +36,7 @@ public enum Mutater {
 		/**
 		 * Flip two random consecutive bits.
 		 */
-		public int mutate(int value) {
+		public int mutate(int value, Random random) {
 			int nextInt = random.nextInt(28);
 			value = value ^ (1 << (nextInt));
 			value = value ^ (1 << ((nextInt + 1) % 28));
@@ -49,7 +49,7 @@ public enum Mutater {
 		/**
 		 * Clear one random bit.
 		 */
-		public int mutate(int value) {
+		public int mutate(int value, Random random) {
 			return value & ~(1 << (random.nextInt(28)));
 		}
 	},
@@ -59,7 +59,7 @@ public enum Mutater {
 		/**
 		 * Set one random bit.
 		 */
-		public int mutate(int value) {
+		public int mutate(int value, Random random) {
 			return value | (1 << (random.nextInt(28)));
 		}
 	},
@@ -69,7 +69,7 @@ public enum Mutater {
 		/**
 		 * Invert all bits (and clear HO nibble).
 		 */
-		public int mutate(int value) {
+		public int mutate(int value, Random random) {
 			return (~value) & 0x0fffffff;
 		}
 	},
@@ -79,7 +79,7 @@ public enum Mutater {
 		/**
 		 * Shift all bits left one place (and clear HO nibble)
 		 */
-		public int mutate(int value) {
+		public int mutate(int value, Random random) {
 			return (value << 1) & 0x0fffffff;
 		}
 	},
@@ -89,7 +89,7 @@ public enum Mutater {
 		/**
 		 * Shift all bits right one place.
 		 */
-		public int mutate(int value) {
+		public int mutate(int value, Random random) {
 			return value >>> 1;
 		}
 	},
@@ -99,13 +99,15 @@ public enum Mutater {
 		/**
 		 * Do nothing.
 		 */
-		public int mutate(int value) {
+		public int mutate(int value, Random random) {
 			return value;
 		}
 	};
 
-	private static Random random = new Random(0);
-
-	public abstract int mutate(int value);
+	/**
+	 * Mutate value, taking any random choices from the given source, so that a caller with its own seeded Random gets
+	 * reproducible mutations.
+	 */
+	public abstract int mutate(int value, Random random);
 
 }
@@ -0,0 +1,186 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased.evolve;
+
+import java.util.List;
+
+/**
+ * The original fitness function: a cheap proxy for conflict misses, counting how many distinct lines (or pages) a
+ * breadth-first walk of every possible search path touches before the first, second and third collisions in the same
+ * set of each spec. It ignores associativity, replacement and the interaction between levels.
+ */
+public class ProxyFitness extends Fitness {
+
+	// Only used locally in simulateBinarySearch(), but reuse to avoid reallocating memory
+	private static ThreadLocal<long[]> theQueue = new ThreadLocal<long[]>() {
+		protected long[] initialValue() {
+			return new long[32 * 1024];
+		}
+	};
+
+	// Reset for every simulation rather than reallocated
+	private static ThreadLocal<UtilityTracker> theTracker = new ThreadLocal<UtilityTracker>() {
+		protected UtilityTracker initialValue() {
+			return new UtilityTracker(1, 4);
+		}
+	};
+
+	// The greatest utility UtilityTracker gives (15 + 15 / 100 + 15 / 10000), and its root as used in compute()
+	private static final double MAX_ROOT = Math.pow(15.1515, (1.0 / 100));
+	// Slack for rounding in the bounds used for pruning, so a candidate is only pruned when it is certainly below
+	private static final double PRUNING_SLACK = 1e-4;
+
+	private final List<Spec> specs;
+
+	public ProxyFitness(List<Spec> specs) {
+		this.specs = specs;
+	}
+
+	@Override
+	protected String identity() {
+		// Associativity is ignored
+		StringBuilder identity = new StringBuilder("proxy");
+		for (Spec spec : specs) {
+			identity.append(' ').append(spec.numberOfSets).append('x').append(spec.blockSizeInBytes).append('@')
+					.append(spec.minArraySizeInBytes);
+		}
+		return identity.toString();
+	}
+
+	@Override
+	public SpecResult[] utilities(int candidate) {
+		SpecResult[] utilities = new SpecResult[specs.size()];
+		int i = 0;
+		for (Spec spec : specs) {
+			utilities[i++] = new SpecResult(spec, worst(candidate, spec, 0));
+		}
+		return utilities;
+	}
+
+	@Override
+	protected float compute(int candidate) {
+		return computeUnlessBelow(candidate, Float.NEGATIVE_INFINITY);
+	}
+
+	/**
+	 * Gives up on a spec as soon as its worst utility so far is too low for the total to reach threshold, even if
+	 * the remaining specs all scored the maximum.
+	 */
+	@Override
+	protected float computeUnlessBelow(int candidate, float threshold) {
+
+		float total = 0;
+		int remaining = specs.size();
+		for (Spec spec : specs) {
+			remaining--;
+			double neededRoot = (double) threshold * specs.size() - total - remaining * MAX_ROOT - PRUNING_SLACK;
+			float floor = neededRoot > 0 ? (float) Math.pow(neededRoot, 100) : 0;
+			float u = worst(candidate, spec, floor);
+			if (u < floor) {
+				return Float.NEGATIVE_INFINITY;
+			}
+			// take a fairly large root to bias improvements in smaller utilities over already large utilities
+			total += Math.pow(u, (1.0 / 100));
+		}
+		return (total / (float) specs.size());
+
+	}
+
+	/**
+	 * @return the lowest utility of any of the array sizes simulated for spec, or as soon as one is found below floor,
+	 *         that utility
+	 */
+	private float worst(int candidate, final Spec spec, float floor) {
+
+		UtilityTracker utilityTracker = theTracker.get();
+		float worst = Float.MAX_VALUE;
+		//TODO hardcoded for 32 bit (int) data type
+		int minArrayMagnitude = Util.log2(spec.minArraySizeInBytes / 4) - Util.log2(8);
+		for (int magnitude = minArrayMagnitude; magnitude <= 27; magnitude += 1) {
+			//System.out.println(magnitude);
+			for (int significant = 8; significant <= 15; significant++) {
+				int sizeOfArray = significant << magnitude;
+				utilityTracker.reset(spec.numberOfSets, spec.blockSizeInBytes);
+				sim(candidate, utilityTracker, 0, sizeOfArray);
+				worst = Math.min(worst, utilityTracker.utility());
+				if (worst < floor) {
+					return worst;
+				}
+			}
+		}
+		return worst;
+	}
+
+	/**
+	 * simulate binarySearch in org.reific.binarysearch.biased.BiasedBinarySearch, for the given candidate constant
+	 */
+	private static void sim(int candidate, UtilityTracker utilityTracker, int fromIndex, int toIndex) {
+
+		int low = fromIndex;
+		int size = toIndex - fromIndex;
+		int nlz = Integer.numberOfLeadingZeros(size);
+		int keepBits = nlz + ((36 - nlz) >> 4);
+
+		//zero-out the remaining bits
+		int mid = size & 0x80000000 >> keepBits;
+
+		//convert all the zeroed bits to ones by subtracting
+		mid = mid - 1;
+
+		int mask = candidate | (0x80000000 >> keepBits);
+		mid = (mid & mask) + low;
+
+		utilityTracker.accessArrayLocation(mid);
+		simulateBinarySearch(utilityTracker, fromIndex, mid);
+
+	}
+
+	private static void simulateBinarySearch(UtilityTracker utilityTracker, long low, long high) {
+
+		if (low >= high) {
+			return;
+		}
+
+		long[] queue = theQueue.get();
+		int insert = 0;
+		int read = 0;
+
+		queue[insert++] = (low << 32) | high;
+
+		while (insert < queue.length - 2) {
+
+			long next = queue[read++];
+			long l = (int) (next >>> 32);
+			long h = (int) (next & 0xFFFFFFFF);
+
+			if (l > h) {
+				return;
+			}
+			long mid = (l + h) >>> 1;
+
+			boolean done = utilityTracker.accessArrayLocation((int) mid);
+			if (done) {
+				return;
+			}
+
+			// Simulate both the left half of the binary search...
+			queue[insert++] = (l << 32) | (mid - 1);
+			// And the right half
+			queue[insert++] = ((mid + 1) << 32) | h;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased.evolve;
+
+/**
+ * Which way of a set a {@link SetAssociativeCache} evicts on a miss, once the set is full. Each policy keeps its
+ * bookkeeping in the cache's state array: one word per way for LRU, one word per set for PLRU.
+ */
+public enum ReplacementPolicy {
+
+	/**
+	 * Least recently used: state[way] is the time of the last access to the way.
+	 */
+	LRU() {
+		@Override
+		void touch(SetAssociativeCache cache, int base, int way) {
+			cache.state[base + way] = ++cache.clock;
+		}
+
+		@Override
+		int victim(SetAssociativeCache cache, int base) {
+			int victim = 0;
+			for (int way = 1; way < cache.ways; way++) {
+				if (cache.state[base + way] < cache.state[base + victim]) {
+					victim = way;
+				}
+			}
+			return victim;
+		}
+	},
+	/**
+	 * Tree pseudo-LRU, as in most L1 caches: a binary tree of ways - 1 bits (ways must be a power of two, at most 64),
+	 * each pointing to the half that was used less recently. state[base] holds the bits, the root at bit 1 and the
+	 * children of node n at bits 2n and 2n + 1.
+	 */
+	PLRU() {
+		@Override
+		void touch(SetAssociativeCache cache, int base, int way) {
+			long bits = cache.state[base];
+			int node = 1;
+			for (int level = cache.levels - 1; level >= 0; level--) {
+				int direction = (way >>> level) & 1;
+				// point away from the way just used
+				bits = direction == 0 ? bits | (1L << node) : bits & ~(1L << node);
+				node = 2 * node + direction;
+			}
+			cache.state[base] = bits;
+		}
+
+		@Override
+		int victim(SetAssociativeCache cache, int base) {
+			long bits = cache.state[base];
+			int node = 1;
+			while (node < cache.ways) {
+				node = 2 * node + (int) ((bits >>> node) & 1);
+			}
+			return node - cache.ways;
+		}
+	},
+	/**
+	 * Random replacement, from a generator reseeded by every reset of the cache, so simulations are repeatable.
+	 */
+	RANDOM() {
+		@Override
+		void touch(SetAssociativeCache cache, int base, int way) {
+		}
+
+		@Override
+		int victim(SetAssociativeCache cache, int base) {
+			return (int) ((cache.nextRandom() >>> 1) % cache.ways);
+		}
+	};
+
+	/**
+	 * Record an access to the given way of the set whose first way is at base.
+	 */
+	abstract void touch(SetAssociativeCache cache, int base, int way);
+
+	/**
+	 * @return the way to evict from the (full) set whose first way is at base
+	 */
+	abstract int victim(SetAssociativeCache cache, int base);
+}
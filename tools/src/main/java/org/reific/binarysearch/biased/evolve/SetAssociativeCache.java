@@ -0,0 +1,106 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased.evolve;
+
+import java.util.Arrays;
+
+/**
+ * Simulates one level of a set-associative cache or TLB: which blocks (lines or pages) it holds, and whether an access
+ * hits. Blocks are placed in the set given by the low order bits of the block number, like the caches and TLBs of
+ * real CPUs, which is where the conflicts that BiasedBinarySearch avoids come from.
+ */
+class SetAssociativeCache {
+
+	private static final long EMPTY = -1;
+
+	final Spec spec;
+	final ReplacementPolicy policy;
+	final int ways;
+	// log2(ways), for PLRU
+	final int levels;
+	private final int setMask;
+	private final int blockShift;
+	// tags[set * ways + way] is the block held by the way, or EMPTY
+	private final long[] tags;
+	// Replacement policy bookkeeping (see ReplacementPolicy)
+	final long[] state;
+	long clock;
+	private long random;
+
+	SetAssociativeCache(Spec spec, ReplacementPolicy policy) {
+		if (Integer.bitCount(spec.numberOfSets) != 1 || Integer.bitCount(spec.blockSizeInBytes) != 1) {
+			throw new IllegalArgumentException("numberOfSets and blockSizeInBytes must be powers of two: "
+					+ spec.description);
+		}
+		if (spec.ways <= 0 || (policy == ReplacementPolicy.PLRU && (Integer.bitCount(spec.ways) != 1
+				|| spec.ways > 64))) {
+			throw new IllegalArgumentException("Bad number of ways (" + spec.ways + ") for " + policy + ": "
+					+ spec.description);
+		}
+		this.spec = spec;
+		this.policy = policy;
+		this.ways = spec.ways;
+		this.levels = Util.log2(ways);
+		this.setMask = spec.numberOfSets - 1;
+		this.blockShift = Util.log2(spec.blockSizeInBytes);
+		this.tags = new long[spec.numberOfSets * ways];
+		this.state = new long[spec.numberOfSets * ways];
+		reset();
+	}
+
+	/**
+	 * Empty the cache.
+	 */
+	void reset() {
+		Arrays.fill(tags, EMPTY);
+		Arrays.fill(state, 0);
+		clock = 0;
+		random = 0x9E3779B97F4A7C15L;
+	}
+
+	/**
+	 * Access the given byte address, loading its block on a miss.
+	 * @return true on a hit
+	 */
+	boolean access(long address) {
+		long block = address >>> blockShift;
+		int base = ((int) block & setMask) * ways;
+		int empty = -1;
+		for (int way = 0; way < ways; way++) {
+			long tag = tags[base + way];
+			if (tag == block) {
+				policy.touch(this, base, way);
+				return true;
+			}
+			if (tag == EMPTY && empty < 0) {
+				empty = way;
+			}
+		}
+		int victim = empty >= 0 ? empty : policy.victim(this, base);
+		tags[base + victim] = block;
+		policy.touch(this, base, victim);
+		return false;
+	}
+
+	// xorshift64
+	long nextRandom() {
+		random ^= random << 13;
+		random ^= random >>> 7;
+		random ^= random << 17;
+		return random;
+	}
+}
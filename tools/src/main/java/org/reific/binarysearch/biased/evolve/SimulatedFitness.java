@@ -0,0 +1,198 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased.evolve;
+
+import java.util.Random;
+
+/**
+ * Fitness from simulating searches through a {@link MemoryHierarchy}. For each array size, a batch of searches for
+ * random (present) keys warms up the caches, and the next batch is measured. The utility of a candidate is
+ * 1 / (1 + cost), where cost is the average miss penalty per search at the worst array size.
+ * <p>
+ * The keys are the same for every candidate, so candidates are compared on equal terms.
+ * <p>
+ * The main method prints the predicted misses per search at each level, for plain and biased binary search, over the
+ * array sizes the benchmarks use.
+ */
+public class SimulatedFitness extends Fitness {
+
+	private static final int DATA_TYPE_SIZE_IN_BYTES = 4;
+
+	private final ThreadLocal<MemoryHierarchy> hierarchy;
+	private final String hierarchyDescription;
+	private final Spec[] specs;
+	private final int minArraySizeInBytes;
+	private final int maxArraySizeInBytes;
+	private final int searches;
+
+	/**
+	 * @param searches the number of searches to warm up with, and then to measure, for each array size
+	 */
+	public SimulatedFitness(final MemoryHierarchy prototype, int minArraySizeInBytes, int maxArraySizeInBytes,
+			int searches) {
+		this.hierarchy = new ThreadLocal<MemoryHierarchy>() {
+			@Override
+			protected MemoryHierarchy initialValue() {
+				return prototype.copy();
+			}
+		};
+		this.specs = prototype.specs();
+		this.hierarchyDescription = prototype.toString();
+		this.minArraySizeInBytes = minArraySizeInBytes;
+		this.maxArraySizeInBytes = maxArraySizeInBytes;
+		this.searches = searches;
+	}
+
+	@Override
+	protected String identity() {
+		return "simulated " + hierarchyDescription + " sizes " + minArraySizeInBytes + "-" + maxArraySizeInBytes
+				+ " searches " + searches;
+	}
+
+	@Override
+	protected float compute(int candidate) {
+		return computeUnlessBelow(candidate, Float.NEGATIVE_INFINITY);
+	}
+
+	/**
+	 * Stops at the first array size whose cost alone brings the utility below threshold.
+	 */
+	@Override
+	protected float computeUnlessBelow(int candidate, float threshold) {
+		float worst = 0;
+		for (int size = firstSize(); size > 0 && size <= maxSize(); size = nextSize(size)) {
+			worst = Math.max(worst, simulate(hierarchy.get(), candidate, true, size, searches) / searches);
+			if (1.0f / (1.0f + worst) < threshold) {
+				return Float.NEGATIVE_INFINITY;
+			}
+		}
+		return 1.0f / (1.0f + worst);
+	}
+
+	/**
+	 * @return the misses per search at each level, at the worst array size
+	 */
+	@Override
+	public SpecResult[] utilities(int candidate) {
+		MemoryHierarchy h = hierarchy.get();
+		float worst = -1;
+		int worstSize = 0;
+		for (int size = firstSize(); size > 0 && size <= maxSize(); size = nextSize(size)) {
+			float cost = simulate(h, candidate, true, size, searches);
+			if (cost > worst) {
+				worst = cost;
+				worstSize = size;
+			}
+		}
+		simulate(h, candidate, true, worstSize, searches);
+		SpecResult[] results = new SpecResult[specs.length];
+		for (int i = 0; i < specs.length; i++) {
+			results[i] = new SpecResult(specs[i], (float) h.misses(i) / searches);
+		}
+		return results;
+	}
+
+	// Sizes 8 << m, 9 << m, ... 15 << m, 8 << (m + 1), ..., as ProxyFitness
+	private int firstSize() {
+		int elements = Math.max(8, minArraySizeInBytes / DATA_TYPE_SIZE_IN_BYTES);
+		return 8 << (Util.log2(elements) - 3);
+	}
+
+	private int maxSize() {
+		return maxArraySizeInBytes / DATA_TYPE_SIZE_IN_BYTES;
+	}
+
+	private static int nextSize(int size) {
+		int magnitude = Util.log2(size) - 3;
+		return size + (1 << magnitude);
+	}
+
+	/**
+	 * Warm up with searches for random keys, then search for as many more.
+	 * @return the miss penalty of the measured searches (the counters of h are left as measured)
+	 */
+	static float simulate(MemoryHierarchy h, int candidate, boolean biased, int size, int searches) {
+		h.reset();
+		Random random = new Random(size);
+		for (int i = 0; i < searches; i++) {
+			search(h, candidate, biased, size, random.nextInt(size));
+		}
+		h.resetCounters();
+		for (int i = 0; i < searches; i++) {
+			search(h, candidate, biased, size, random.nextInt(size));
+		}
+		return h.cost();
+	}
+
+	/**
+	 * The probes of BiasedBinarySearch.binarySearch (or of Arrays.binarySearch, if not biased) over an array of
+	 * ascending values at a page aligned address, for the key at the given position.
+	 */
+	private static void search(MemoryHierarchy h, int candidate, boolean biased, int size, int position) {
+		int low = 0;
+		int high = size - 1;
+		int mid = biased ? biasedMidpoint(candidate, size) : (low + high) >>> 1;
+		while (low <= high) {
+			h.access((long) mid * DATA_TYPE_SIZE_IN_BYTES);
+			if (mid < position) {
+				low = mid + 1;
+			}
+			else if (mid > position) {
+				high = mid - 1;
+			}
+			else {
+				return;
+			}
+			mid = (low + high) >>> 1;
+		}
+	}
+
+	// As BiasedBinarySearch.biasedMidpoint, for fromIndex 0
+	private static int biasedMidpoint(int candidate, int size) {
+		int nlz = Integer.numberOfLeadingZeros(size);
+		int keepBits = nlz + ((36 - nlz) >> 4);
+		int mid = size & (0x80000000 >> keepBits);
+		mid = mid - 1;
+		int mask = candidate | (0x80000000 >> keepBits);
+		return mid & mask;
+	}
+
+	public static void main(String[] args) {
+		int candidate = args.length > 0 ? Long.decode(args[0]).intValue() : 79643643;
+		int searches = args.length > 1 ? Integer.parseInt(args[1]) : 4096;
+		MemoryHierarchy h = MemoryHierarchy.haswell(ReplacementPolicy.PLRU);
+		Spec[] specs = h.specs();
+		// The sizes in org.reific.benchmarks.Haystack
+		int[] sizes = { 1024, 1152, 65536, 73728, 1048576, 1179648, 16777216, 18874368, 67108864, 75497472 };
+
+		System.out.printf("Predicted misses per search for candidate %d (%d searches)%n", candidate, searches);
+		for (int i = 0; i < specs.length; i++) {
+			System.out.printf("  L%d: %s%n", i, specs[i].description);
+		}
+		for (int size : sizes) {
+			for (boolean biased : new boolean[] { false, true }) {
+				float cost = simulate(h, candidate, biased, size, searches);
+				StringBuilder line = new StringBuilder(String.format("%10d %-6s cost %8.2f", size,
+						biased ? "biased" : "plain", cost / searches));
+				for (int i = 0; i < specs.length; i++) {
+					line.append(String.format("  L%d %6.3f", i, (float) h.misses(i) / searches));
+				}
+				System.out.println(line);
+			}
+		}
+	}
+}
@@ -24,6 +24,7 @@ class Spec {
 		private int numberOfSets;
 		private int minArraySizeInBytes;
 		private int blockSizeInBytes;
+		private int ways;
 		private final String description;
 
 		public SpecBuilder(String description) {
@@ -32,7 +33,7 @@ class Spec {
 
 		public Spec build() {
 			if (numberOfSets != 0 && blockSizeInBytes != 0 && minArraySizeInBytes != 0) {
-				return new Spec(description, numberOfSets, blockSizeInBytes, minArraySizeInBytes);
+				return new Spec(description, numberOfSets, blockSizeInBytes, minArraySizeInBytes, ways);
 			}
 			throw new IllegalStateException("Builder not fully initialized");
 		}
@@ -51,21 +52,31 @@ class Spec {
 			this.minArraySizeInBytes = minArraySizeInBytes;
 			return this;
 		}
+
+		/**
+		 * Associativity, only needed by the simulated fitness (ProxyFitness ignores it)
+		 */
+		public SpecBuilder ways(int ways) {
+			this.ways = ways;
+			return this;
+		}
 	}
 
 	public final int numberOfSets;
 	public final int minArraySizeInBytes;
 	public final int blockSizeInBytes;
+	public final int ways;
 	public final String description;
 
 	public static SpecBuilder of(String description) {
 		return new SpecBuilder(description);
 	}
 
-	private Spec(String description, int numberOfSets, int blockSizeInBytes, int minArraySizeInBytes) {
+	private Spec(String description, int numberOfSets, int blockSizeInBytes, int minArraySizeInBytes, int ways) {
 		this.description = description;
 		this.numberOfSets = numberOfSets;
 		this.blockSizeInBytes = blockSizeInBytes;
 		this.minArraySizeInBytes = minArraySizeInBytes;
+		this.ways = ways;
 	}
 }
\ No newline at end of file
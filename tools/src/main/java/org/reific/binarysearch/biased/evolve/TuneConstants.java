@@ -0,0 +1,151 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased.evolve;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tunes the constant used in BiasedBinarySearch for the specs in a configuration file (see {@link TuningConfig}), to
+ * a budget of epochs or time, and writes the best constant found into a constants table. BiasedBinarySearch reads
+ * such a table at startup when it is named by the system property org.reific.binarysearch.biased.constants, or when
+ * it is on the classpath as biased-constants.properties.
+ * <p>
+ * Other entries already in the output file are kept, so one table can collect the constants of several machines. With
+ * a checkpoint file, the run is saved after every epoch, and a later run with the same configuration resumes from it.
+ * <p>
+ * Usage: TuneConstants config.properties
+ */
+public class TuneConstants {
+
+	// The version of the constants table format, checked by BiasingConstant
+	static final String FORMAT = "1";
+
+	public static void main(String[] args) throws Exception {
+		if (args.length != 1) {
+			System.err.println("Usage: TuneConstants config.properties");
+			System.exit(2);
+		}
+		TuningConfig config = TuningConfig.load(args[0]);
+		config.checkBudget();
+
+		Evolution evolution;
+		File checkpoint = config.checkpoint == null ? null : new File(config.checkpoint);
+		if (checkpoint != null && checkpoint.exists()) {
+			try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(checkpoint))) {
+				evolution = new Evolution(config.fitness, config.fingerprint, (Evolution.Checkpoint) in.readObject());
+			}
+			System.out.printf("Resumed from %s after epoch %d%n", checkpoint, evolution.epoch());
+		}
+		else {
+			evolution = new Evolution(config.fitness, config.seed, config.islands);
+		}
+
+		long deadline = config.seconds > 0 ? System.nanoTime() + config.seconds * 1000000000L : Long.MAX_VALUE;
+		ExecutorService executor = Executors.newFixedThreadPool(
+				Math.max(1, Math.min(config.islands, Runtime.getRuntime().availableProcessors())));
+		try {
+			float best = 0;
+			while ((config.epochs <= 0 || evolution.epoch() < config.epochs) && System.nanoTime() < deadline) {
+				evolution.evolveEpoch(executor);
+				if (checkpoint != null) {
+					writeCheckpoint(checkpoint, evolution.checkpoint(config.fingerprint));
+				}
+				Individual champion = evolution.champion();
+				if (champion.utility > best) {
+					best = champion.utility;
+					System.out.printf("Epoch %d%n", evolution.epoch());
+					EvolveBinarySearchConstant.print(champion);
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		Individual champion = evolution.champion();
+		writeTable(new File(config.output), config.geometry, champion.value,
+				"after " + evolution.epoch() + " epochs, utility " + champion.utility);
+		System.out.printf("Wrote %s=%d to %s%n", config.geometry, champion.value, config.output);
+	}
+
+	/**
+	 * Write to a temporary file and rename it, so an interrupted write never leaves a corrupt checkpoint.
+	 */
+	private static void writeCheckpoint(File file, Evolution.Checkpoint checkpoint) throws IOException {
+		Path temporary = new File(file.getPath() + ".tmp").toPath();
+		try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(temporary))) {
+			out.writeObject(checkpoint);
+		}
+		Files.move(temporary, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Add (or replace) the entry for geometry in the constants table file, noting how the value was found.
+	 */
+	static void writeTable(File file, String geometry, int value, String provenance) throws IOException {
+		Properties existing = new Properties();
+		if (file.exists()) {
+			try (InputStream in = new FileInputStream(file)) {
+				existing.load(in);
+			}
+		}
+		String existingFormat = existing.getProperty("format", FORMAT);
+		if (!existingFormat.equals(FORMAT)) {
+			throw new IOException(file + " has format " + existingFormat + ", expected " + FORMAT);
+		}
+		TreeMap<String, String> entries = new TreeMap<String, String>();
+		for (String key : existing.stringPropertyNames()) {
+			entries.put(key, existing.getProperty(key));
+		}
+		entries.remove("format");
+		entries.put(geometry, Integer.toString(value));
+
+		Path temporary = new File(file.getPath() + ".tmp").toPath();
+		try (OutputStream out = Files.newOutputStream(temporary);
+				Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.ISO_8859_1))) {
+			writer.write("# Biasing constants for BiasedBinarySearch, keyed by cache geometry\n");
+			writer.write("# " + geometry + " written on " + new Date() + " " + provenance + "\n");
+			writer.write("format=" + FORMAT + "\n");
+			// default first, for the reader's benefit
+			String defaultValue = entries.remove(TuningConfig.DEFAULT_GEOMETRY);
+			if (defaultValue != null) {
+				writer.write(TuningConfig.DEFAULT_GEOMETRY + "=" + defaultValue + "\n");
+			}
+			for (String key : entries.keySet()) {
+				writer.write(key + "=" + entries.get(key) + "\n");
+			}
+		}
+		Files.move(temporary, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
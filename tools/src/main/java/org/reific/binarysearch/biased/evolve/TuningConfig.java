@@ -0,0 +1,177 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased.evolve;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * The configuration of a {@link TuneConstants} run, read from a properties file:
+ * 
+ * <pre>
+ * # The constants table entry to write: a geometry key as printed by CacheGeometry, or "default"
+ * geometry=L1d_64x64x8,L2_512x64x8,L3_8192x64x16,page_4096
+ * output=biased-constants.properties
+ * # Optional: save the run here after every epoch, and resume from it if it exists
+ * checkpoint=tune.checkpoint
+ * # Optional: keep evaluations in a file in this directory, for reuse by any run with the same specs
+ * memo=memo
+ * # Budget: stop after this many epochs, or this many seconds, whichever comes first (TuneConstants requires one)
+ * epochs=200
+ * seconds=3600
+ * # Optional
+ * seed=5
+ * islands=8
+ * # proxy or simulated
+ * fitness=proxy
+ *
+ * # The specs, numbered from 1
+ * spec.1.description=32k L1 Cache, 8-way, 64 byte cachelines
+ * spec.1.sets=64
+ * spec.1.blockSizeInBytes=64
+ * spec.1.ways=8
+ * spec.1.minArraySizeInBytes=65536
+ * # Simulated fitness only: cache or tlb (each in order, from level 1), and the cost of a miss
+ * spec.1.level=cache
+ * spec.1.missPenalty=8
+ *
+ * # Simulated fitness only, optional
+ * policy=PLRU
+ * searches=256
+ * minArraySizeInBytes=65536
+ * maxArraySizeInBytes=1073741824
+ * </pre>
+ */
+public class TuningConfig {
+
+	static final String DEFAULT_GEOMETRY = "default";
+
+	final String geometry;
+	final String output;
+	final String checkpoint;
+	final String memo;
+	final int epochs;
+	final long seconds;
+	final long seed;
+	final int islands;
+	final Fitness fitness;
+	// Everything that determines the course of a run, for checking a checkpoint matches
+	final String fingerprint;
+
+	public static TuningConfig load(String path) throws IOException {
+		Properties properties = new Properties();
+		try (InputStream in = new FileInputStream(path)) {
+			properties.load(in);
+		}
+		return new TuningConfig(properties);
+	}
+
+	public TuningConfig(Properties properties) {
+		geometry = required(properties, "geometry");
+		if (!geometry.matches("[A-Za-z0-9_,]+") || geometry.equals("format")) {
+			throw new IllegalArgumentException("Bad geometry: " + geometry);
+		}
+		output = required(properties, "output");
+		checkpoint = properties.getProperty("checkpoint");
+		memo = properties.getProperty("memo");
+		epochs = Integer.parseInt(properties.getProperty("epochs", "0"));
+		seconds = Long.parseLong(properties.getProperty("seconds", "0"));
+		seed = Long.parseLong(properties.getProperty("seed", "5"));
+		islands = Integer.parseInt(properties.getProperty("islands", "8"));
+
+		List<Spec> specs = new ArrayList<Spec>();
+		for (int n = 1; properties.getProperty("spec." + n + ".sets") != null; n++) {
+			String prefix = "spec." + n + ".";
+			specs.add(Spec.of(properties.getProperty(prefix + "description", "spec " + n))
+					.numberOfSets(Integer.parseInt(required(properties, prefix + "sets")))
+					.blockSizeInBytes(Integer.parseInt(required(properties, prefix + "blockSizeInBytes")))
+					.ways(Integer.parseInt(properties.getProperty(prefix + "ways", "0")))
+					.minArraySizeInBytes(Integer.parseInt(required(properties, prefix + "minArraySizeInBytes")))
+					.build());
+		}
+		if (specs.isEmpty()) {
+			throw new IllegalArgumentException("No specs (spec.1.sets etc.)");
+		}
+
+		String fitnessName = properties.getProperty("fitness", "proxy");
+		if (fitnessName.equals("proxy")) {
+			fitness = new ProxyFitness(specs);
+		}
+		else if (fitnessName.equals("simulated")) {
+			ReplacementPolicy policy = ReplacementPolicy.valueOf(properties.getProperty("policy", "PLRU"));
+			MemoryHierarchy.MemoryHierarchyBuilder builder = MemoryHierarchy.builder();
+			for (int n = 1; n <= specs.size(); n++) {
+				String prefix = "spec." + n + ".";
+				String level = required(properties, prefix + "level");
+				float missPenalty = Float.parseFloat(required(properties, prefix + "missPenalty"));
+				if (level.equals("cache")) {
+					builder.cache(specs.get(n - 1), policy, missPenalty);
+				}
+				else if (level.equals("tlb")) {
+					builder.tlb(specs.get(n - 1), policy, missPenalty);
+				}
+				else {
+					throw new IllegalArgumentException("Bad " + prefix + "level: " + level);
+				}
+			}
+			fitness = new SimulatedFitness(builder.build(),
+					Integer.parseInt(properties.getProperty("minArraySizeInBytes", "65536")),
+					Integer.parseInt(properties.getProperty("maxArraySizeInBytes", "1073741824")),
+					Integer.parseInt(properties.getProperty("searches", "256")));
+		}
+		else {
+			throw new IllegalArgumentException("Unknown fitness function: " + fitnessName);
+		}
+
+		if (memo != null) {
+			fitness.memoizeIn(new File(memo));
+		}
+
+		// The budget and file names may change between a run and its resumption
+		StringBuilder fingerprint = new StringBuilder();
+		for (String key : new TreeSet<String>(properties.stringPropertyNames())) {
+			if (!key.equals("output") && !key.equals("checkpoint") && !key.equals("memo")
+					&& !key.equals("epochs") && !key.equals("seconds")) {
+				fingerprint.append(key).append('=').append(properties.getProperty(key).trim()).append('\n');
+			}
+		}
+		this.fingerprint = fingerprint.toString();
+	}
+
+	/**
+	 * Check there is a budget for the genetic algorithm (an exhaustive search needs none)
+	 */
+	void checkBudget() {
+		if (epochs <= 0 && seconds <= 0) {
+			throw new IllegalArgumentException("A budget of epochs or seconds is required");
+		}
+	}
+
+	private static String required(Properties properties, String key) {
+		String value = properties.getProperty(key);
+		if (value == null || value.trim().isEmpty()) {
+			throw new IllegalArgumentException("Missing " + key);
+		}
+		return value.trim();
+	}
+}
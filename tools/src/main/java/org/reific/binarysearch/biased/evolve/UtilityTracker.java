@@ -0,0 +1,214 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased.evolve;
+
+import java.util.Arrays;
+
+/**
+ * Tracks simulated array accesses and calculates the utility for a specific Cache/TLB configuration.
+ * <p>
+ * A tracker is reused for many simulations (see {@link #reset(int, int)}), and allocates nothing once its tables are
+ * large enough, so evaluating a candidate constant does not churn the heap.
+ */
+class UtilityTracker {
+
+	// TODO: Hard coded for now for 32 bit (int[]/float[]) arrays
+	private static final int DATA_TYPE_SIZE_IN_BYTES = 4;
+
+	// A simulation ends within about 16K accesses (half the queue in Individual), which keeps the visited table at
+	// most a quarter full. It grows if ever it is half full.
+	private static final int INITIAL_VISITED_CAPACITY = 1 << 16;
+
+	// Bit i of sets1 (sets2, sets3) is set once set i has been accessed at least once (twice, three times)
+	private long[] sets1 = new long[0];
+	private long[] sets2 = new long[0];
+	private long[] sets3 = new long[0];
+	// The cardinalities of sets1, sets2 and sets3
+	private int count1;
+	private int count2;
+	private int count3;
+	private int mask;
+	// From array index to cache line (or page) number
+	private int shift;
+
+	// Open addressing hash table of the cache lines (or pages) accessed. A slot is occupied when its stamp is the
+	// current stamp, so reset() empties the table by incrementing the stamp.
+	private int[] visitedLines = new int[INITIAL_VISITED_CAPACITY];
+	private int[] visitedStamps = new int[INITIAL_VISITED_CAPACITY];
+	private int stamp = 0;
+	private int numberOfVisitedLines;
+
+	private float utility;
+	private boolean done;
+	// The number of memory access before the first/second/third collision
+	private int numberOfAccessesFirstFailure;
+	private int numberOfAccessesSecondFailure;
+	private int numberOfAccessesThirdFailure;
+
+	public UtilityTracker(int numberOfSets, int blockSizeInBytes) {
+		reset(numberOfSets, blockSizeInBytes);
+	}
+
+	/**
+	 * Forget all accesses, and start a new simulation of the given configuration.
+	 */
+	public void reset(int numberOfSets, int blockSizeInBytes) {
+		int words = (numberOfSets + 63) >>> 6;
+		if (sets1.length < words) {
+			sets1 = new long[words];
+			sets2 = new long[words];
+			sets3 = new long[words];
+		}
+		else {
+			Arrays.fill(sets1, 0, words, 0L);
+			Arrays.fill(sets2, 0, words, 0L);
+			Arrays.fill(sets3, 0, words, 0L);
+		}
+		count1 = 0;
+		count2 = 0;
+		count3 = 0;
+		mask = numberOfSets - 1;
+		shift = Util.log2(blockSizeInBytes) - Util.log2(DATA_TYPE_SIZE_IN_BYTES);
+
+		if (++stamp == 0) {
+			Arrays.fill(visitedStamps, 0);
+			stamp = 1;
+		}
+		numberOfVisitedLines = 0;
+
+		utility = 0;
+		done = false;
+		numberOfAccessesFirstFailure = 0;
+		numberOfAccessesSecondFailure = 0;
+		numberOfAccessesThirdFailure = 0;
+	}
+
+	public float utility() {
+		return done ? utility : 14.0f;
+	}
+
+	/**
+	 * simulate access to given array index. 
+	 * @return true when the simulation should end because accesses are being made in duplicate cache lines/pages
+	 */
+	public boolean accessArrayLocation(int arrayLocation) {
+		if (done) {
+			return true;
+		}
+		// Which cache line (for caches simulation) or page (for TLB simulation) is being accessed? 
+		int cacheLine = arrayLocation >>> shift;
+
+		// We are done if either we we access a duplicate cacheline/page (which means all future accesses are free)
+		// or if we hit some arbitrary number of collisions (numberOfAccessesThirdFailure > 0).
+		// Keep track what cache lines or page is being accessed so we will know
+		// when we've stated binary searching within the same line/page
+		if (numberOfAccessesThirdFailure > 0 || !visit(cacheLine)) {
+			//The actual utility calculation for a particular cache/page size
+			float a = numberOfAccessesFirstFailure == 0 ? 15.0f : Util.log2(numberOfAccessesFirstFailure);
+			float b = numberOfAccessesSecondFailure == 0 ? 15.0f : Util.log2(numberOfAccessesSecondFailure);
+			float c = numberOfAccessesThirdFailure == 0 ? 15.0f : Util.log2(numberOfAccessesThirdFailure);
+			utility = a;
+			utility += b / 100.0;
+			utility += c / 10000.0;
+
+			done = true;
+			return true;
+		}
+
+		int set = cacheLine & mask;
+		int word = set >>> 6;
+		long bit = 1L << set;
+
+		if ((sets1[word] & bit) != 0) {
+			if (numberOfAccessesFirstFailure == 0) {
+				numberOfAccessesFirstFailure = count1;
+			}
+			if ((sets2[word] & bit) != 0) {
+				if (numberOfAccessesSecondFailure == 0) {
+					numberOfAccessesSecondFailure = count2;
+				}
+
+				if ((sets3[word] & bit) != 0) {
+					if (numberOfAccessesThirdFailure == 0) {
+						numberOfAccessesThirdFailure = count3;
+					}
+				}
+				else {
+					sets3[word] |= bit;
+					count3++;
+				}
+			}
+			else {
+				sets2[word] |= bit;
+				count2++;
+			}
+		}
+		else {
+			sets1[word] |= bit;
+			count1++;
+		}
+
+		return false;
+
+	}
+
+	/**
+	 * Record an access to the given line.
+	 * @return false if the line had already been accessed
+	 */
+	private boolean visit(int line) {
+		int[] lines = visitedLines;
+		int[] stamps = visitedStamps;
+		int slotMask = lines.length - 1;
+		int slot = hash(line) & slotMask;
+		while (stamps[slot] == stamp) {
+			if (lines[slot] == line) {
+				return false;
+			}
+			slot = (slot + 1) & slotMask;
+		}
+		lines[slot] = line;
+		stamps[slot] = stamp;
+		if (++numberOfVisitedLines > lines.length >>> 1) {
+			growVisited();
+		}
+		return true;
+	}
+
+	private void growVisited() {
+		int[] lines = visitedLines;
+		int[] stamps = visitedStamps;
+		visitedLines = new int[lines.length * 2];
+		visitedStamps = new int[lines.length * 2];
+		int slotMask = visitedLines.length - 1;
+		for (int i = 0; i < lines.length; i++) {
+			if (stamps[i] == stamp) {
+				int slot = hash(lines[i]) & slotMask;
+				while (visitedStamps[slot] == stamp) {
+					slot = (slot + 1) & slotMask;
+				}
+				visitedLines[slot] = lines[i];
+				visitedStamps[slot] = stamp;
+			}
+		}
+	}
+
+	private static int hash(int line) {
+		int h = line * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
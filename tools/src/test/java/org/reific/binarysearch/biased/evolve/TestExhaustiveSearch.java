@@ -0,0 +1,178 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased.evolve;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestExhaustiveSearch {
+
+	// Few array sizes, so each candidate is quick to evaluate
+	private static final List<Spec> SPECS = Arrays.asList(
+			Spec.of("L1").numberOfSets(64).blockSizeInBytes(64).minArraySizeInBytes(1 << 29).build(),
+			Spec.of("TLB").numberOfSets(16).blockSizeInBytes(4096).minArraySizeInBytes(1 << 29).build());
+
+	// As TuningConfig would compute it for these specs
+	private static final String FINGERPRINT = "fitness=proxy\nspecs=L1,TLB\n";
+
+	@Test
+	/**
+	 * Pruning must not change the ranking: it must be exactly the best of every candidate computed in full.
+	 */
+	public void testPrunedRankingIsExact() throws Exception {
+		final Fitness fitness = new ProxyFitness(SPECS);
+		int from = 79643643 - 300;
+		int to = 79643643 + 300;
+		int k = 10;
+
+		List<Integer> candidates = new ArrayList<Integer>();
+		final float[] utilities = new float[to - from];
+		for (int candidate = from; candidate < to; candidate++) {
+			candidates.add(candidate);
+			utilities[candidate - from] = fitness.compute(candidate);
+		}
+		final int offset = from;
+		Collections.sort(candidates, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				int byUtility = Float.compare(utilities[b - offset], utilities[a - offset]);
+				return byUtility != 0 ? byUtility : Integer.compare(a, b);
+			}
+		});
+
+		List<ExhaustiveSearch.Ranking.Entry> ranking = ExhaustiveSearch.search(fitness, FINGERPRINT, from, to, k, false).entries();
+		assertEquals(k, ranking.size());
+		for (int i = 0; i < k; i++) {
+			assertEquals((int) candidates.get(i), ranking.get(i).value);
+			assertEquals(utilities[candidates.get(i) - from], ranking.get(i).utility, 0);
+		}
+	}
+
+	@Test
+	public void testComputeUnlessBelow() throws Exception {
+		Fitness fitness = new ProxyFitness(SPECS);
+		float utility = fitness.compute(79643643);
+		assertEquals(utility, fitness.computeUnlessBelow(79643643, utility), 0);
+		assertEquals(utility, fitness.computeUnlessBelow(79643643, Float.NEGATIVE_INFINITY), 0);
+		assertEquals(Float.NEGATIVE_INFINITY, fitness.computeUnlessBelow(79643643, utility * 2), 0);
+	}
+
+	@Test
+	/**
+	 * Rankings of parts of a range merge to the ranking of the whole.
+	 */
+	public void testMerge() throws Exception {
+		Fitness fitness = new ProxyFitness(SPECS);
+		File first = File.createTempFile("ranking", ".txt");
+		File second = File.createTempFile("ranking", ".txt");
+		try {
+			ExhaustiveSearch.search(fitness, FINGERPRINT, 1000, 1200, 5, false).write(first);
+			ExhaustiveSearch.search(fitness, FINGERPRINT, 1200, 1400, 5, false).write(second);
+			ExhaustiveSearch.Ranking merged = new ExhaustiveSearch.Ranking(5, FINGERPRINT);
+			merged.read(first);
+			merged.read(second);
+			List<ExhaustiveSearch.Ranking.Entry> whole = ExhaustiveSearch.search(fitness, FINGERPRINT, 1000, 1400, 5, false)
+					.entries();
+			for (int i = 0; i < 5; i++) {
+				assertEquals(whole.get(i).value, merged.entries().get(i).value);
+				assertEquals(whole.get(i).utility, merged.entries().get(i).utility, 0);
+			}
+			// Two parts of the space do not make the whole of it
+			assertFalse(merged.coversAll());
+		} finally {
+			first.delete();
+			second.delete();
+		}
+	}
+
+	@Test
+	/**
+	 * Only rankings whose ranges, read back from their files, cover every candidate, may update the constants table.
+	 */
+	public void testCoverage() throws Exception {
+		int half = Fitness.NUMBER_OF_CANDIDATES / 2;
+		ExhaustiveSearch.Ranking first = new ExhaustiveSearch.Ranking(5, FINGERPRINT);
+		first.searched(0, half);
+		first.offer(42, 1.0f);
+		ExhaustiveSearch.Ranking second = new ExhaustiveSearch.Ranking(5, FINGERPRINT);
+		second.searched(half - 10, Fitness.NUMBER_OF_CANDIDATES);
+		assertFalse(first.coversAll());
+		assertFalse(second.coversAll());
+
+		File firstFile = File.createTempFile("ranking", ".txt");
+		File secondFile = File.createTempFile("ranking", ".txt");
+		try {
+			first.write(firstFile);
+			second.write(secondFile);
+			ExhaustiveSearch.Ranking merged = new ExhaustiveSearch.Ranking(5, FINGERPRINT);
+			merged.read(firstFile);
+			assertFalse(merged.coversAll());
+			merged.read(secondFile);
+			assertTrue(merged.coversAll());
+			assertEquals(42, merged.entries().get(0).value);
+		} finally {
+			firstFile.delete();
+			secondFile.delete();
+		}
+
+		ExhaustiveSearch.Ranking gap = new ExhaustiveSearch.Ranking(5, FINGERPRINT);
+		gap.searched(0, half);
+		gap.searched(half + 1, Fitness.NUMBER_OF_CANDIDATES);
+		assertFalse(gap.coversAll());
+	}
+
+	@Test
+	/**
+	 * A ranking made under another configuration must not be merged, nor count towards the coverage.
+	 */
+	public void testMergeRejectsOtherConfiguration() throws Exception {
+		ExhaustiveSearch.Ranking other = new ExhaustiveSearch.Ranking(5, "fitness=simulated\nspecs=L1,TLB\n");
+		other.searched(0, Fitness.NUMBER_OF_CANDIDATES);
+		other.offer(42, 1.0f);
+		File file = File.createTempFile("ranking", ".txt");
+		try {
+			other.write(file);
+			ExhaustiveSearch.Ranking merged = new ExhaustiveSearch.Ranking(5, FINGERPRINT);
+			try {
+				merged.read(file);
+				fail();
+			} catch (IOException e) {
+				// expected
+			}
+			assertFalse(merged.coversAll());
+			assertTrue(merged.entries().isEmpty());
+			ExhaustiveSearch.Ranking same = new ExhaustiveSearch.Ranking(5, "fitness=simulated\nspecs=L1,TLB\n");
+			same.read(file);
+			assertTrue(same.coversAll());
+		} finally {
+			file.delete();
+		}
+	}
+
+}
@@ -0,0 +1,113 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased.evolve;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class TestFitness {
+
+	/**
+	 * Utility is the candidate modulo 3 (so often 0), counting the computations
+	 */
+	private static class CountingFitness extends Fitness {
+
+		private final String identity;
+		int computed;
+
+		CountingFitness(String identity) {
+			this.identity = identity;
+		}
+
+		@Override
+		protected synchronized float compute(int candidate) {
+			computed++;
+			return candidate % 3;
+		}
+
+		@Override
+		protected String identity() {
+			return identity;
+		}
+
+		@Override
+		public SpecResult[] utilities(int candidate) {
+			return new SpecResult[0];
+		}
+	}
+
+	@Test
+	public void testMemoFileIsShared() throws Exception {
+		File directory = Files.createTempDirectory("memo").toFile();
+		try {
+			CountingFitness first = new CountingFitness("first");
+			first.memoizeIn(directory);
+			for (int candidate = 0; candidate < 100; candidate++) {
+				assertEquals(candidate % 3, first.utility(candidate), 0);
+				assertEquals(candidate % 3, first.utility(candidate), 0);
+			}
+			// Utility 0 is memoized too
+			assertEquals(100, first.computed);
+			assertTrue(first.memoFile(directory).isFile());
+
+			CountingFitness same = new CountingFitness("first");
+			same.memoizeIn(directory);
+			for (int candidate = 0; candidate < 100; candidate++) {
+				assertEquals(candidate % 3, same.utility(candidate), 0);
+			}
+			assertEquals(0, same.computed);
+
+			CountingFitness other = new CountingFitness("other");
+			other.memoizeIn(directory);
+			assertTrue(!other.memoFile(directory).equals(first.memoFile(directory)));
+			other.utility(5);
+			assertEquals(1, other.computed);
+		} finally {
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	@Test
+	public void testTemporaryMemo() throws Exception {
+		CountingFitness fitness = new CountingFitness("temporary");
+		assertEquals(2, fitness.utility(Fitness.NUMBER_OF_CANDIDATES - 2), 0);
+		assertEquals(2, fitness.utility(Fitness.NUMBER_OF_CANDIDATES - 2), 0);
+		assertEquals(1, fitness.computed);
+	}
+
+	@Test
+	public void testIdentityDependsOnSpecs() throws Exception {
+		Spec l1 = Spec.of("L1").numberOfSets(64).blockSizeInBytes(64).minArraySizeInBytes(65536).build();
+		Spec tlb = Spec.of("TLB").numberOfSets(16).blockSizeInBytes(4096).minArraySizeInBytes(1 << 20).build();
+		assertEquals(new ProxyFitness(Arrays.asList(l1)).identity(),
+				new ProxyFitness(Arrays.asList(l1)).identity());
+		assertTrue(!new ProxyFitness(Arrays.asList(l1)).identity()
+				.equals(new ProxyFitness(Arrays.asList(l1, tlb)).identity()));
+		assertTrue(!MemoryHierarchy.haswell(ReplacementPolicy.LRU).toString()
+				.equals(MemoryHierarchy.haswell(ReplacementPolicy.PLRU).toString()));
+	}
+
+}
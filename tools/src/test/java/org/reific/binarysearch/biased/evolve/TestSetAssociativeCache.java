@@ -0,0 +1,128 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased.evolve;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TestSetAssociativeCache {
+
+	// 4 sets of 4 ways of 64 byte lines: addresses 256 bytes apart map to the same set
+	private static final Spec SPEC = Spec.of("test").numberOfSets(4).blockSizeInBytes(64).ways(4)
+			.minArraySizeInBytes(1024).build();
+
+	@Test
+	public void testLru() throws Exception {
+		SetAssociativeCache cache = new SetAssociativeCache(SPEC, ReplacementPolicy.LRU);
+		for (int i = 0; i < 4; i++) {
+			assertFalse(cache.access(i * 256));
+		}
+		// Same lines, and another address in a cached line
+		for (int i = 0; i < 4; i++) {
+			assertTrue(cache.access(i * 256 + 8));
+		}
+		// Other sets are unaffected
+		assertFalse(cache.access(64));
+		// Make line 0 the most recently used, so line 1 is evicted
+		assertTrue(cache.access(0));
+		assertFalse(cache.access(4 * 256));
+		assertFalse(cache.access(1 * 256));
+		// ... which evicted line 2
+		assertTrue(cache.access(0));
+		assertFalse(cache.access(2 * 256));
+	}
+
+	@Test
+	public void testPlru() throws Exception {
+		SetAssociativeCache cache = new SetAssociativeCache(SPEC, ReplacementPolicy.PLRU);
+		for (int i = 0; i < 4; i++) {
+			assertFalse(cache.access(i * 256));
+		}
+		// After using way 0 the root points right, where way 3 was used after way 2. So line 2 is evicted, where LRU
+		// would evict line 1.
+		assertTrue(cache.access(0));
+		assertFalse(cache.access(4 * 256));
+		assertTrue(cache.access(1 * 256));
+		assertFalse(cache.access(2 * 256));
+		// Unlike LRU, a cycle through ways + 1 lines does not always miss
+		cache.reset();
+		int hits = 0;
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < 5; i++) {
+				hits += cache.access(i * 256) ? 1 : 0;
+			}
+		}
+		assertTrue(hits > 0);
+	}
+
+	@Test
+	public void testRandomIsRepeatable() throws Exception {
+		SetAssociativeCache cache = new SetAssociativeCache(SPEC, ReplacementPolicy.RANDOM);
+		StringBuilder first = new StringBuilder();
+		StringBuilder second = new StringBuilder();
+		for (StringBuilder hits : new StringBuilder[] { first, second }) {
+			cache.reset();
+			for (int i = 0; i < 1000; i++) {
+				hits.append(cache.access((i * 7919 % 13) * 256) ? '1' : '0');
+			}
+		}
+		assertEquals(first.toString(), second.toString());
+		assertTrue(first.indexOf("1") >= 0);
+	}
+
+	@Test
+	public void testHierarchy() throws Exception {
+		MemoryHierarchy h = MemoryHierarchy.builder()
+				.cache(SPEC, ReplacementPolicy.LRU, 10)
+				.cache(Spec.of("L2").numberOfSets(16).blockSizeInBytes(64).ways(4).minArraySizeInBytes(1024).build(),
+						ReplacementPolicy.LRU, 100)
+				.tlb(Spec.of("TLB").numberOfSets(1).blockSizeInBytes(4096).ways(2).minArraySizeInBytes(1024).build(),
+						ReplacementPolicy.LRU, 1000)
+				.build();
+		h.access(0);
+		assertEquals(1, h.misses(0));
+		assertEquals(1, h.misses(1));
+		assertEquals(1, h.misses(2));
+		assertEquals(1110, h.cost(), 0);
+
+		// Five lines of one L1 set, in distinct L2 sets and one page
+		for (int i = 1; i <= 4; i++) {
+			h.access(i * 256);
+		}
+		h.resetCounters();
+		// Line 0 was evicted from L1, but not from L2
+		h.access(0);
+		assertEquals(1, h.accesses());
+		assertEquals(1, h.misses(0));
+		assertEquals(0, h.misses(1));
+		assertEquals(0, h.misses(2));
+
+		MemoryHierarchy copy = h.copy();
+		copy.access(0);
+		assertEquals(1, copy.misses(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPlruNeedsPowerOfTwoWays() throws Exception {
+		new SetAssociativeCache(Spec.of("3-way").numberOfSets(4).blockSizeInBytes(64).ways(3)
+				.minArraySizeInBytes(1024).build(), ReplacementPolicy.PLRU);
+	}
+
+}
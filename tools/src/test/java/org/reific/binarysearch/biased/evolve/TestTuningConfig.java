@@ -0,0 +1,104 @@
+/*
+    Copyright (C) 2015 James Scriven
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.reific.binarysearch.biased.evolve;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Properties;
+
+import org.junit.Test;
+
+public class TestTuningConfig {
+
+	@Test
+	public void testExampleConfig() throws Exception {
+		TuningConfig config = TuningConfig.load("config/i7-4790K.properties");
+		assertEquals("L1d_64x64x8,L2_512x64x8,L3_8192x64x16,page_4096", config.geometry);
+		assertEquals(100, config.epochs);
+		assertEquals(8, config.islands);
+		assertTrue(config.fitness instanceof SimulatedFitness);
+	}
+
+	@Test
+	public void testMinimalProxyConfig() throws Exception {
+		Properties properties = minimal();
+		TuningConfig config = new TuningConfig(properties);
+		assertEquals(TuningConfig.DEFAULT_GEOMETRY, config.geometry);
+		assertNull(config.checkpoint);
+		assertEquals(5, config.seed);
+		assertTrue(config.fitness instanceof ProxyFitness);
+	}
+
+	@Test
+	/**
+	 * A run may be resumed with a different budget or files, but not different specs.
+	 */
+	public void testFingerprint() throws Exception {
+		Properties properties = minimal();
+		String fingerprint = new TuningConfig(properties).fingerprint;
+		properties.setProperty("epochs", "20");
+		properties.setProperty("seconds", "60");
+		properties.setProperty("output", "elsewhere.properties");
+		properties.setProperty("checkpoint", "elsewhere.checkpoint");
+		assertEquals(fingerprint, new TuningConfig(properties).fingerprint);
+		properties.setProperty("spec.1.sets", "32");
+		assertTrue(!fingerprint.equals(new TuningConfig(properties).fingerprint));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoBudget() throws Exception {
+		Properties properties = minimal();
+		properties.remove("epochs");
+		new TuningConfig(properties).checkBudget();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSimulatedNeedsLevels() throws Exception {
+		Properties properties = minimal();
+		properties.setProperty("fitness", "simulated");
+		new TuningConfig(properties);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBadGeometry() throws Exception {
+		Properties properties = minimal();
+		properties.setProperty("geometry", "L1d=64");
+		new TuningConfig(properties);
+	}
+
+	private static Properties minimal() throws Exception {
+		Properties properties = new Properties();
+		try (InputStream in = new FileInputStream("config/i7-4790K.properties")) {
+			properties.load(in);
+		}
+		Properties minimal = new Properties();
+		minimal.setProperty("geometry", "default");
+		minimal.setProperty("output", "target/test-constants.properties");
+		minimal.setProperty("epochs", "1");
+		for (String key : properties.stringPropertyNames()) {
+			if (key.startsWith("spec.1.") && !key.endsWith("level") && !key.endsWith("missPenalty")) {
+				minimal.setProperty(key, properties.getProperty(key));
+			}
+		}
+		return minimal;
+	}
+
+}